@@ -0,0 +1,114 @@
+package com.example.server;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Deterministic synthetic inputs shared by the benchmarks. Every shape is scaled to fill a size^3 grid.
+public final class BenchmarkVolumes {
+
+    public enum Shape { SPHERE, TORUS, NOISE, VOXELIZED_MESH }
+
+    private BenchmarkVolumes() {}
+
+    public static VoxelGrid grid(Shape shape, int size) {
+        if (shape == Shape.VOXELIZED_MESH) {
+            MeshBuffer torus = torusMesh(size * 0.3, size * 0.12, 96, 48);
+            return new Voxelizer().voxelize(torus, (int) Math.round(size * 0.24), Voxelizer.Fill.SPAN);
+        }
+
+        VoxelGrid grid = new VoxelGrid(size, size, size, 0, 0, 0, 1);
+        double c = (size - 1) / 2.0;
+        for (int z = 1; z < size - 1; z++) {
+            for (int y = 1; y < size - 1; y++) {
+                for (int x = 1; x < size - 1; x++) {
+                    if (inside(shape, x - c, y - c, z - c, size)) grid.set(x, y, z, VoxelGrid.SOLID);
+                }
+            }
+        }
+        return grid;
+    }
+
+    private static boolean inside(Shape shape, double x, double y, double z, int size) {
+        switch (shape) {
+            case SPHERE: {
+                double r = size * 0.45;
+                return x * x + y * y + z * z < r * r;
+            }
+            case TORUS: {
+                double major = size * 0.3, minor = size * 0.12;
+                double ring = Math.sqrt(x * x + y * y) - major;
+                return ring * ring + z * z < minor * minor;
+            }
+            default:
+                return valueNoise(x / 8, y / 8, z / 8) > 0.5;
+        }
+    }
+
+    private static double valueNoise(double x, double y, double z) {
+        int x0 = (int) Math.floor(x), y0 = (int) Math.floor(y), z0 = (int) Math.floor(z);
+        double fx = x - x0, fy = y - y0, fz = z - z0;
+        double result = 0;
+        for (int corner = 0; corner < 8; corner++) {
+            int dx = corner & 1, dy = corner >> 1 & 1, dz = corner >> 2 & 1;
+            double weight = (dx == 1 ? fx : 1 - fx) * (dy == 1 ? fy : 1 - fy) * (dz == 1 ? fz : 1 - fz);
+            result += weight * hash(x0 + dx, y0 + dy, z0 + dz);
+        }
+        return result;
+    }
+
+    private static double hash(int x, int y, int z) {
+        long h = x * 0x9E3779B97F4A7C15L ^ y * 0xC2B2AE3D27D4EB4FL ^ z * 0x165667B19E3779F9L;
+        h ^= h >>> 29;
+        h *= 0xBF58476D1CE4E5B9L;
+        h ^= h >>> 32;
+        return (h >>> 11) / (double) (1L << 53);
+    }
+
+    public static MeshBuffer torusMesh(double major, double minor, int segments, int sides) {
+        MeshBuffer mesh = new MeshBuffer(segments * sides, segments * sides * 2);
+        for (int i = 0; i < segments; i++) {
+            double u = 2 * Math.PI * i / segments;
+            for (int j = 0; j < sides; j++) {
+                double v = 2 * Math.PI * j / sides;
+                double ring = major + minor * Math.cos(v);
+                mesh.addVertex((float) (ring * Math.cos(u)), (float) (ring * Math.sin(u)), (float) (minor * Math.sin(v)));
+            }
+        }
+        for (int i = 0; i < segments; i++) {
+            for (int j = 0; j < sides; j++) {
+                int a = i * sides + j, b = (i + 1) % segments * sides + j;
+                int c = (i + 1) % segments * sides + (j + 1) % sides, d = i * sides + (j + 1) % sides;
+                mesh.addTriangle(a, b, c);
+                mesh.addTriangle(a, c, d);
+            }
+        }
+        return mesh;
+    }
+
+    public static List<VoxelCoordinates> cellCenters(VoxelGrid grid) {
+        List<VoxelCoordinates> centers = new ArrayList<>();
+        for (int z = 0; z < grid.getDepth(); z++)
+            for (int y = 0; y < grid.getHeight(); y++)
+                for (int x = 0; x < grid.getWidth(); x++)
+                    if (grid.density(x, y, z) > 0.5f)
+                        centers.add(new VoxelCoordinates(grid.worldX(x), grid.worldY(y), grid.worldZ(z)));
+        return centers;
+    }
+
+    public static int[] lattice(VoxelGrid grid) {
+        int solid = 0;
+        for (byte b : grid.getData())
+            if (b == VoxelGrid.SOLID) solid++;
+        int[] coordinates = new int[solid * 3];
+        int n = 0;
+        for (int z = 0; z < grid.getDepth(); z++)
+            for (int y = 0; y < grid.getHeight(); y++)
+                for (int x = 0; x < grid.getWidth(); x++)
+                    if (grid.density(x, y, z) > 0.5f) {
+                        coordinates[n++] = x;
+                        coordinates[n++] = y;
+                        coordinates[n++] = z;
+                    }
+        return coordinates;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.server;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ExtractionBenchmark {
+
+    private static final int INTERPOLATIONS = 1 << 20;
+
+    @Param({ "32", "64", "128", "256" })
+    public int size;
+
+    @Param({ "SPHERE", "TORUS", "NOISE", "VOXELIZED_MESH" })
+    public BenchmarkVolumes.Shape shape;
+
+    private final MarchingCubes marchingCubes = new MarchingCubes();
+    private ParallelMarchingCubes parallelMarchingCubes;
+    private VoxelGrid grid;
+    private int[] edges;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        grid = BenchmarkVolumes.grid(shape, size);
+        parallelMarchingCubes = new ParallelMarchingCubes(marchingCubes, 0, 8);
+
+        Random random = new Random(42);
+        edges = new int[INTERPOLATIONS * 3];
+        for (int i = 0; i < edges.length; i += 3) {
+            edges[i] = random.nextInt(size - 1);
+            edges[i + 1] = random.nextInt(size - 1);
+            edges[i + 2] = random.nextInt(size - 1);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        parallelMarchingCubes.shutdown();
+    }
+
+    @Benchmark
+    public int classifyCubes() {
+        return marchingCubes.countActiveCells(grid);
+    }
+
+    @Benchmark
+    public MeshBuffer interpolateVertices() {
+        MeshBuffer mesh = new MeshBuffer(INTERPOLATIONS, 1);
+        for (int i = 0; i < edges.length; i += 3) {
+            MarchingCubes.VertexInterp(mesh, grid, 0f, 1f, edges[i], edges[i + 1], edges[i + 2], i & 7, (i + 1) & 7);
+        }
+        return mesh;
+    }
+
+    @Benchmark
+    public MeshBuffer extract() {
+        return marchingCubes.extract(grid);
+    }
+
+    @Benchmark
+    public MeshBuffer extractParallel() {
+        return parallelMarchingCubes.extract(grid);
+    }
+}
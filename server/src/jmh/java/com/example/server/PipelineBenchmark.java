@@ -0,0 +1,60 @@
+package com.example.server;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Request-path stages that depend on the uploaded point list: grid building and the full
+// List-in/List-out generateMesh call behind the JSON /upload.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class PipelineBenchmark {
+
+    @Param({ "32", "64", "128" })
+    public int size;
+
+    @Param({ "SPHERE", "TORUS", "NOISE", "VOXELIZED_MESH" })
+    public BenchmarkVolumes.Shape shape;
+
+    private final MarchingCubes marchingCubes = new MarchingCubes();
+    private List<VoxelCoordinates> centers;
+    private int[] lattice;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        VoxelGrid grid = BenchmarkVolumes.grid(shape, size);
+        centers = BenchmarkVolumes.cellCenters(grid);
+        lattice = BenchmarkVolumes.lattice(grid);
+    }
+
+    @Benchmark
+    public VoxelGrid buildGridFromCellCenters() {
+        return VoxelGrid.fromCellCenters(centers);
+    }
+
+    @Benchmark
+    public VoxelGrid buildGridFromLattice() {
+        return VoxelGrid.fromLattice(lattice, lattice.length / 3, 0, 0, 0, 1);
+    }
+
+    @Benchmark
+    public List<VoxelCoordinates> generateMesh() {
+        return marchingCubes.generateMesh(centers);
+    }
+}
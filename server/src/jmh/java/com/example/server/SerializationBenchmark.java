@@ -0,0 +1,84 @@
+package com.example.server;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// JSON vs. binary wire format for both directions of /upload.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SerializationBenchmark {
+
+    private static final TypeReference<List<VoxelCoordinates>> COORDINATES = new TypeReference<>() {};
+
+    @Param({ "32", "64", "128" })
+    public int size;
+
+    @Param({ "SPHERE", "NOISE" })
+    public BenchmarkVolumes.Shape shape;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private MeshBuffer mesh;
+    private byte[] jsonRequest;
+    private byte[] binaryRequest;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        VoxelGrid grid = BenchmarkVolumes.grid(shape, size);
+        mesh = new MarchingCubes().extract(grid);
+        jsonRequest = objectMapper.writeValueAsBytes(BenchmarkVolumes.cellCenters(grid));
+
+        int[] lattice = BenchmarkVolumes.lattice(grid);
+        ByteBuffer buffer = ByteBuffer.allocate(28 + lattice.length * 4).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(VoxelWireFormat.MAGIC).putInt(VoxelWireFormat.LATTICE);
+        buffer.putFloat(1f).putFloat(0f).putFloat(0f).putFloat(0f).putInt(lattice.length / 3);
+        for (int c : lattice) buffer.putInt(c);
+        binaryRequest = buffer.array();
+    }
+
+    @Benchmark
+    public List<VoxelCoordinates> decodeJsonRequest() throws IOException {
+        return objectMapper.readValue(jsonRequest, COORDINATES);
+    }
+
+    @Benchmark
+    public VoxelGrid decodeBinaryRequest() throws IOException {
+        return VoxelWireFormat.readGrid(new ByteArrayInputStream(binaryRequest));
+    }
+
+    @Benchmark
+    public byte[] encodeJsonResponse() throws IOException {
+        return objectMapper.writeValueAsBytes(mesh.toTriangleList());
+    }
+
+    @Benchmark
+    public byte[] encodeBinaryResponse() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream((int) VoxelWireFormat.meshSize(mesh));
+        VoxelWireFormat.writeMesh(mesh, out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.server;
+
+// Occupancy summary used by MarchingCubes to skip homogeneous regions. Level 0 flags every BRICK^3 block of
+// cells whose samples straddle the 0.5 iso-level; levels 1 and 2 count active bricks per brick row and per
+// brick layer so whole rows and layers of empty or solid space are skipped without touching their bricks.
+class BrickPyramid {
+
+    static final int BRICK = 8;
+    static final int SHIFT = 3;
+
+    private final int bricksX, bricksY, firstLayer;
+    private final boolean[] active;
+    private final int[] rowCounts;
+    private final int[] layerCounts;
+
+    private BrickPyramid(int bricksX, int bricksY, int firstLayer, int layers) {
+        this.bricksX = bricksX;
+        this.bricksY = bricksY;
+        this.firstLayer = firstLayer;
+        this.active = new boolean[bricksX * bricksY * layers];
+        this.rowCounts = new int[bricksY * layers];
+        this.layerCounts = new int[layers];
+    }
+
+    // Covers the cell layers [zStart, zEnd). A brick scan stops as soon as it has seen samples on both
+    // sides of the iso-level, so only homogeneous bricks are read in full.
+    static BrickPyramid build(VoxelGrid grid, int zStart, int zEnd) {
+        int width = grid.getWidth(), height = grid.getHeight();
+        int cellsX = width - 1, cellsY = height - 1;
+        int bricksX = (cellsX + BRICK - 1) >> SHIFT, bricksY = (cellsY + BRICK - 1) >> SHIFT;
+        int firstLayer = zStart >> SHIFT, lastLayer = (zEnd - 1) >> SHIFT;
+        BrickPyramid pyramid = new BrickPyramid(bricksX, bricksY, firstLayer, Math.max(0, lastLayer - firstLayer + 1));
+        byte[] data = grid.getData();
+
+        for (int bz = firstLayer; bz <= lastLayer; bz++) {
+            int z0 = bz << SHIFT, z1 = Math.min(z0 + BRICK, grid.getDepth() - 1);
+            for (int by = 0; by < bricksY; by++) {
+                int y0 = by << SHIFT, y1 = Math.min(y0 + BRICK, cellsY);
+                for (int bx = 0; bx < bricksX; bx++) {
+                    int x0 = bx << SHIFT, x1 = Math.min(x0 + BRICK, cellsX);
+                    if (!straddles(data, width, height, x0, x1, y0, y1, z0, z1)) continue;
+                    int layer = bz - firstLayer;
+                    pyramid.active[bx + bricksX * (by + bricksY * layer)] = true;
+                    pyramid.rowCounts[by + bricksY * layer]++;
+                    pyramid.layerCounts[layer]++;
+                }
+            }
+        }
+        return pyramid;
+    }
+
+    // Samples are inside when density > 0.5, i.e. an unsigned byte value of at least 128.
+    private static boolean straddles(byte[] data, int width, int height, int x0, int x1, int y0, int y1, int z0, int z1) {
+        boolean inside = false, outside = false;
+        for (int z = z0; z <= z1; z++) {
+            for (int y = y0; y <= y1; y++) {
+                int row = width * (y + height * z);
+                for (int x = x0; x <= x1; x++) {
+                    if (data[row + x] < 0) inside = true;
+                    else outside = true;
+                }
+                if (inside && outside) return true;
+            }
+        }
+        return false;
+    }
+
+    boolean layerActive(int z) {
+        return layerCounts[(z >> SHIFT) - firstLayer] > 0;
+    }
+
+    boolean rowActive(int y, int z) {
+        return rowCounts[(y >> SHIFT) + bricksY * ((z >> SHIFT) - firstLayer)] > 0;
+    }
+
+    boolean brickActive(int x, int y, int z) {
+        return active[(x >> SHIFT) + bricksX * ((y >> SHIFT) + bricksY * ((z >> SHIFT) - firstLayer))];
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.server;
+
+public class ChunkMesh {
+    private final int x, y, z;
+    private final long version;
+    private final float[] positions;
+    private final int[] indices;
+
+    public ChunkMesh(int x, int y, int z, long version, MeshBuffer mesh) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.version = version;
+        this.positions = mesh.getPositions();
+        this.indices = mesh.getIndices();
+    }
+
+    public int getX() { return x; }
+    public int getY() { return y; }
+    public int getZ() { return z; }
+    public long getVersion() { return version; }
+    public float[] getPositions() { return positions; }
+    public int[] getIndices() { return indices; }
+}
@@ -0,0 +1,246 @@
+package com.example.server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+// Writes an indexed mesh as binary glTF 2.0 (GLB): a JSON chunk describing one triangle primitive and a
+// BIN chunk holding the position, normal and index buffer views back to back, written straight from the
+// MeshBuffer arrays. MeshBuffer uses Babylon's left-handed frame with clockwise front faces; negating z
+// (as Babylon's GLTF2Export does) turns that into glTF's right-handed frame with counter-clockwise front
+// faces, so indices are written unchanged. Indices are uint16 when the vertex count allows it. When
+// quantized, positions are stored as uint16 offsets on the mesh bounds (the node's translation and scale
+// map them back) and normals as normalized int8, as allowed by KHR_mesh_quantization. The node scale is
+// uniform, sized by the largest extent, because viewers transform normals by the node's inverse transpose
+// and a per-axis scale would skew them.
+public final class GlbEncoder {
+
+    public static final String MEDIA_TYPE = "model/gltf-binary";
+
+    private static final int MAGIC = 0x46546C67;
+    private static final int VERSION = 2;
+    private static final int CHUNK_JSON = 0x4E4F534A;
+    private static final int CHUNK_BIN = 0x004E4942;
+
+    private static final int BYTE = 5120;
+    private static final int UNSIGNED_SHORT = 5123;
+    private static final int UNSIGNED_INT = 5125;
+    private static final int FLOAT = 5126;
+    private static final int ARRAY_BUFFER = 34962;
+    private static final int ELEMENT_ARRAY_BUFFER = 34963;
+
+    private static final int QUANTIZED_MAX = 0xFFFF;
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private GlbEncoder() {}
+
+    public static long size(MeshBuffer mesh, boolean quantize) {
+        return new Layout(mesh, quantize).total;
+    }
+
+    public static void write(MeshBuffer mesh, boolean quantize, OutputStream out) throws IOException {
+        Layout layout = new Layout(mesh, quantize);
+        ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt((int) layout.total);
+        buffer.putInt(layout.json.length).putInt(CHUNK_JSON);
+        flush(buffer, out);
+        out.write(layout.json);
+        if (layout.binLength == 0) return;
+
+        buffer.putInt(layout.binLength).putInt(CHUNK_BIN);
+        int vertexCount = mesh.getVertexCount();
+        float[] positions = mesh.getPositions();
+        for (int i = 0; i < vertexCount * 3; i++) {
+            if (buffer.remaining() < 4) flush(buffer, out);
+            int axis = i % 3;
+            float value = axis == 2 ? -positions[i] : positions[i];
+            if (!quantize) {
+                buffer.putFloat(value);
+                continue;
+            }
+            int q = Math.round((value - layout.min[axis]) / layout.scale);
+            buffer.putShort((short) Math.max(0, Math.min(QUANTIZED_MAX, q)));
+            if (axis == 2) buffer.putShort((short) 0);
+        }
+
+        if (mesh.hasNormals()) {
+            float[] normals = normals(mesh);
+            for (int i = 0; i < vertexCount * 3; i++) {
+                if (buffer.remaining() < 4) flush(buffer, out);
+                if (!quantize) {
+                    buffer.putFloat(normals[i]);
+                    continue;
+                }
+                buffer.put((byte) Math.max(-127, Math.min(127, Math.round(normals[i] * 127))));
+                if (i % 3 == 2) buffer.put((byte) 0);
+            }
+        }
+
+        int[] indices = mesh.getIndices();
+        for (int i = 0, n = mesh.getIndexCount(); i < n; i++) {
+            if (buffer.remaining() < 4) flush(buffer, out);
+            if (layout.shortIndices) buffer.putShort((short) indices[i]);
+            else buffer.putInt(indices[i]);
+        }
+        while (buffer.position() % 4 != 0) buffer.put((byte) 0);
+        flush(buffer, out);
+    }
+
+    // Vertex normals in the glTF frame. Vertices whose density gradient vanished (MarchingCubes leaves those
+    // at zero) get the area-weighted normal of their triangles instead, since glTF requires unit normals.
+    private static float[] normals(MeshBuffer mesh) {
+        int vertexCount = mesh.getVertexCount();
+        float[] source = mesh.getNormals(), normals = new float[vertexCount * 3];
+        boolean missing = false;
+        for (int v = 0; v < vertexCount; v++) {
+            normals[v * 3] = source[v * 3];
+            normals[v * 3 + 1] = source[v * 3 + 1];
+            normals[v * 3 + 2] = -source[v * 3 + 2];
+            missing |= isZero(normals, v);
+        }
+        if (!missing) return normals;
+
+        float[] positions = mesh.getPositions();
+        int[] indices = mesh.getIndices();
+        double[] faceSum = new double[vertexCount * 3];
+        for (int t = 0; t < mesh.getIndexCount(); t += 3) {
+            int a = indices[t] * 3, b = indices[t + 1] * 3, c = indices[t + 2] * 3;
+            // Cross product of (b - a) and (c - a) with z negated on every coordinate, i.e. outward in glTF.
+            double ux = positions[b] - positions[a], uy = positions[b + 1] - positions[a + 1], uz = positions[a + 2] - positions[b + 2];
+            double vx = positions[c] - positions[a], vy = positions[c + 1] - positions[a + 1], vz = positions[a + 2] - positions[c + 2];
+            double nx = uy * vz - uz * vy, ny = uz * vx - ux * vz, nz = ux * vy - uy * vx;
+            for (int corner = 0; corner < 3; corner++) {
+                int v = indices[t + corner] * 3;
+                faceSum[v] += nx;
+                faceSum[v + 1] += ny;
+                faceSum[v + 2] += nz;
+            }
+        }
+        for (int v = 0; v < vertexCount; v++) {
+            if (!isZero(normals, v)) continue;
+            double x = faceSum[v * 3], y = faceSum[v * 3 + 1], z = faceSum[v * 3 + 2];
+            double length = Math.sqrt(x * x + y * y + z * z);
+            if (length == 0) {
+                normals[v * 3 + 1] = 1;
+                continue;
+            }
+            normals[v * 3] = (float) (x / length);
+            normals[v * 3 + 1] = (float) (y / length);
+            normals[v * 3 + 2] = (float) (z / length);
+        }
+        return normals;
+    }
+
+    private static boolean isZero(float[] normals, int v) {
+        return normals[v * 3] == 0 && normals[v * 3 + 1] == 0 && normals[v * 3 + 2] == 0;
+    }
+
+    private static void flush(ByteBuffer buffer, OutputStream out) throws IOException {
+        out.write(buffer.array(), 0, buffer.position());
+        buffer.clear();
+    }
+
+    // Chunk sizes and the JSON document; the BIN chunk is padded with zeros and the JSON with spaces to a
+    // multiple of four bytes, as GLB requires.
+    private static final class Layout {
+        final float[] min = new float[3], max = new float[3];
+        float scale = 1;
+        final boolean shortIndices;
+        final byte[] json;
+        final int binLength;
+        final long total;
+
+        Layout(MeshBuffer mesh, boolean quantize) {
+            int vertexCount = mesh.getVertexCount(), indexCount = mesh.getIndexCount();
+            shortIndices = vertexCount <= QUANTIZED_MAX;
+            bounds(mesh);
+            if (quantize) {
+                float extent = Math.max(max[0] - min[0], Math.max(max[1] - min[1], max[2] - min[2]));
+                if (extent > 0) scale = extent / QUANTIZED_MAX;
+            }
+
+            int positionBytes = vertexCount * (quantize ? 8 : 12);
+            int normalBytes = mesh.hasNormals() ? vertexCount * (quantize ? 4 : 12) : 0;
+            int indexBytes = indexCount * (shortIndices ? 2 : 4);
+            binLength = vertexCount == 0 || indexCount == 0 ? 0 : positionBytes + normalBytes + (indexBytes + 3) / 4 * 4;
+
+            StringBuilder text = new StringBuilder(1024);
+            text.append("{\"asset\":{\"version\":\"2.0\",\"generator\":\"react-java server\"}");
+            if (binLength == 0) {
+                text.append(",\"scene\":0,\"scenes\":[{}]}");
+            } else {
+                if (quantize) text.append(",\"extensionsUsed\":[\"KHR_mesh_quantization\"],\"extensionsRequired\":[\"KHR_mesh_quantization\"]");
+                text.append(",\"scene\":0,\"scenes\":[{\"nodes\":[0]}],\"nodes\":[{\"mesh\":0");
+                if (quantize) {
+                    text.append(",\"translation\":");
+                    vector(text, min[0], min[1], min[2]);
+                    text.append(",\"scale\":");
+                    vector(text, scale, scale, scale);
+                }
+                int normalAccessor = mesh.hasNormals() ? 1 : -1, indexAccessor = mesh.hasNormals() ? 2 : 1;
+                text.append("}],\"meshes\":[{\"primitives\":[{\"attributes\":{\"POSITION\":0");
+                if (normalAccessor >= 0) text.append(",\"NORMAL\":").append(normalAccessor);
+                text.append("},\"indices\":").append(indexAccessor).append(",\"mode\":4}]}]");
+                text.append(",\"buffers\":[{\"byteLength\":").append(binLength).append("}]");
+
+                text.append(",\"bufferViews\":[");
+                view(text, 0, positionBytes, quantize ? 8 : 12, ARRAY_BUFFER);
+                if (normalAccessor >= 0) view(text.append(','), positionBytes, normalBytes, quantize ? 4 : 12, ARRAY_BUFFER);
+                view(text.append(','), positionBytes + normalBytes, indexBytes, 0, ELEMENT_ARRAY_BUFFER);
+
+                text.append("],\"accessors\":[{\"bufferView\":0,\"componentType\":").append(quantize ? UNSIGNED_SHORT : FLOAT);
+                text.append(",\"count\":").append(vertexCount).append(",\"type\":\"VEC3\",\"min\":");
+                if (quantize) {
+                    vector(text, 0, 0, 0);
+                    text.append(",\"max\":");
+                    vector(text, quantized(0), quantized(1), quantized(2));
+                } else {
+                    vector(text, min[0], min[1], min[2]);
+                    text.append(",\"max\":");
+                    vector(text, max[0], max[1], max[2]);
+                }
+                text.append('}');
+                if (normalAccessor >= 0) {
+                    text.append(",{\"bufferView\":1,\"componentType\":").append(quantize ? BYTE : FLOAT);
+                    if (quantize) text.append(",\"normalized\":true");
+                    text.append(",\"count\":").append(vertexCount).append(",\"type\":\"VEC3\"}");
+                }
+                text.append(",{\"bufferView\":").append(indexAccessor).append(",\"componentType\":").append(shortIndices ? UNSIGNED_SHORT : UNSIGNED_INT);
+                text.append(",\"count\":").append(indexCount).append(",\"type\":\"SCALAR\"}]}");
+            }
+            while (text.length() % 4 != 0) text.append(' ');
+            json = text.toString().getBytes(StandardCharsets.US_ASCII);
+            total = 12L + 8 + json.length + (binLength > 0 ? 8L + binLength : 0);
+        }
+
+        private void bounds(MeshBuffer mesh) {
+            float[] positions = mesh.getPositions();
+            for (int axis = 0; axis < 3; axis++) {
+                min[axis] = Float.POSITIVE_INFINITY;
+                max[axis] = Float.NEGATIVE_INFINITY;
+            }
+            for (int i = 0; i < mesh.getVertexCount() * 3; i++) {
+                int axis = i % 3;
+                float value = axis == 2 ? -positions[i] : positions[i];
+                min[axis] = Math.min(min[axis], value);
+                max[axis] = Math.max(max[axis], value);
+            }
+        }
+
+        private int quantized(int axis) {
+            return Math.max(0, Math.min(QUANTIZED_MAX, Math.round((max[axis] - min[axis]) / scale)));
+        }
+
+        private static void vector(StringBuilder text, float x, float y, float z) {
+            text.append('[').append(x).append(',').append(y).append(',').append(z).append(']');
+        }
+
+        private static void view(StringBuilder text, int offset, int length, int stride, int target) {
+            text.append("{\"buffer\":0,\"byteOffset\":").append(offset).append(",\"byteLength\":").append(length);
+            if (stride > 0) text.append(",\"byteStride\":").append(stride);
+            text.append(",\"target\":").append(target).append('}');
+        }
+    }
+}
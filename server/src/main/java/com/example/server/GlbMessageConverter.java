@@ -0,0 +1,43 @@
+package com.example.server;
+
+import java.io.IOException;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+public class GlbMessageConverter extends AbstractHttpMessageConverter<GlbModel> {
+
+    public static final MediaType GLB = MediaType.parseMediaType(GlbEncoder.MEDIA_TYPE);
+
+    public GlbMessageConverter() {
+        super(GLB);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return GlbModel.class == clazz;
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected GlbModel readInternal(Class<? extends GlbModel> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("GLB bodies are not accepted", inputMessage);
+    }
+
+    @Override
+    protected Long getContentLength(GlbModel model, MediaType contentType) {
+        return GlbEncoder.size(model.getMesh(), model.isQuantized());
+    }
+
+    @Override
+    protected void writeInternal(GlbModel model, HttpOutputMessage outputMessage) throws IOException {
+        GlbEncoder.write(model.getMesh(), model.isQuantized(), outputMessage.getBody());
+    }
+}
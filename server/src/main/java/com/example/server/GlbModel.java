@@ -0,0 +1,16 @@
+package com.example.server;
+
+// Response body of /upload/glb: a mesh to be written by GlbEncoder.
+public class GlbModel {
+
+    private final MeshBuffer mesh;
+    private final boolean quantized;
+
+    public GlbModel(MeshBuffer mesh, boolean quantized) {
+        this.mesh = mesh;
+        this.quantized = quantized;
+    }
+
+    public MeshBuffer getMesh() { return mesh; }
+    public boolean isQuantized() { return quantized; }
+}
@@ -0,0 +1,133 @@
+package com.example.server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Out-of-core volume backed by a memory-mapped file, so grids far beyond the heap only cost page cache.
+// BYTE cells keep full densities; BIT cells store occupancy only (eight cells per byte, every layer
+// starting on a byte boundary). The file is mapped in segments of whole layers because a single
+// MappedByteBuffer cannot exceed 2 GB.
+public class MappedVolume implements VoxelVolume, Closeable {
+
+    public enum Cells { BYTE, BIT }
+
+    private static final long SEGMENT_BYTES = 1L << 30;
+
+    private final int width, height, depth;
+    private final double originX, originY, originZ;
+    private final double cellSize;
+    private final Cells cells;
+    private final FileChannel channel;
+    private final long layerBytes;
+    private final int layersPerSegment;
+    private final MappedByteBuffer[] segments;
+
+    private MappedVolume(int width, int height, int depth, double originX, double originY, double originZ, double cellSize,
+                         Cells cells, FileChannel channel) {
+        if (width < 0 || height < 0 || depth < 0) throw new IllegalArgumentException("Negative grid dimension");
+        this.width = width;
+        this.height = height;
+        this.depth = depth;
+        this.originX = originX;
+        this.originY = originY;
+        this.originZ = originZ;
+        this.cellSize = cellSize;
+        this.cells = cells;
+        this.channel = channel;
+        long plane = (long) width * height;
+        if (plane > SEGMENT_BYTES) throw new IllegalArgumentException("Layer of " + width + "x" + height + " cells is too large");
+        this.layerBytes = cells == Cells.BIT ? (plane + 7) / 8 : plane;
+        this.layersPerSegment = (int) Math.max(1, SEGMENT_BYTES / Math.max(1, layerBytes));
+        this.segments = new MappedByteBuffer[(depth + layersPerSegment - 1) / layersPerSegment];
+    }
+
+    // Creates an empty volume in a temporary file under directory that is deleted when the volume is closed.
+    public static MappedVolume createTemporary(Path directory, int width, int height, int depth,
+                                               double originX, double originY, double originZ, double cellSize, Cells cells) throws IOException {
+        Path file = Files.createTempFile(directory, "volume-", ".bin");
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+        try {
+            MappedVolume volume = new MappedVolume(width, height, depth, originX, originY, originZ, cellSize, cells, channel);
+            long size = volume.layerBytes * depth;
+            if (size > 0) channel.write(ByteBuffer.wrap(new byte[1]), size - 1);
+            return volume;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private MappedByteBuffer segment(int z) {
+        int s = z / layersPerSegment;
+        MappedByteBuffer segment = segments[s];
+        if (segment == null) {
+            long start = (long) s * layersPerSegment * layerBytes;
+            long length = Math.min((long) layersPerSegment, depth - (long) s * layersPerSegment) * layerBytes;
+            try {
+                segment = channel.map(FileChannel.MapMode.READ_WRITE, start, length);
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot map volume segment " + s, e);
+            }
+            segments[s] = segment;
+        }
+        return segment;
+    }
+
+    private int layerOffset(int z) {
+        return (int) ((z % layersPerSegment) * layerBytes);
+    }
+
+    @Override
+    public void set(int x, int y, int z, byte value) {
+        MappedByteBuffer segment = segment(z);
+        int cell = x + width * y;
+        if (cells == Cells.BYTE) {
+            segment.put(layerOffset(z) + cell, value);
+            return;
+        }
+        int offset = layerOffset(z) + (cell >>> 3);
+        int bit = 1 << (cell & 7);
+        int packed = segment.get(offset);
+        segment.put(offset, (byte) (value < 0 ? packed | bit : packed & ~bit));
+    }
+
+    @Override
+    public void readLayers(int zStart, int zEnd, byte[] target) {
+        int plane = width * height;
+        byte[] packed = cells == Cells.BIT ? new byte[(int) layerBytes] : null;
+        for (int z = zStart; z < zEnd; z++) {
+            MappedByteBuffer segment = segment(z);
+            int into = (z - zStart) * plane;
+            if (cells == Cells.BYTE) {
+                segment.get(layerOffset(z), target, into, plane);
+                continue;
+            }
+            segment.get(layerOffset(z), packed, 0, packed.length);
+            for (int cell = 0; cell < plane; cell++) {
+                target[into + cell] = (packed[cell >>> 3] & (1 << (cell & 7))) != 0 ? VoxelGrid.SOLID : VoxelGrid.EMPTY;
+            }
+        }
+    }
+
+    // Deletes temporary files; mapped pages are released once the segments are garbage collected.
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    public Cells getCells() { return cells; }
+
+    @Override public int getWidth() { return width; }
+    @Override public int getHeight() { return height; }
+    @Override public int getDepth() { return depth; }
+    @Override public double getCellSize() { return cellSize; }
+    @Override public double getOriginX() { return originX; }
+    @Override public double getOriginY() { return originY; }
+    @Override public double getOriginZ() { return originZ; }
+}
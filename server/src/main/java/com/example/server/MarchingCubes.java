@@ -1,97 +1,281 @@
 package com.example.server;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.function.IntConsumer;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 @Component
 public class MarchingCubes {
 
+    static final int STREAM_LAYERS = 32;
+
     private final int[] edgeTable;
-    private final int[][] triTable;
+    private final byte[] triangleCounts;
+    private final byte[] triangleEdges;
+
+    @Autowired
+    public MarchingCubes() {
+        this(MarchingCubesTables.edgeTable, MarchingCubesTables.triTable);
+    }
 
     public MarchingCubes(int[] edgeTable, int[][] triTable) {
         this.edgeTable = edgeTable;
-        this.triTable = triTable;
+        this.triangleCounts = MarchingCubesTables.triangleCounts(triTable);
+        this.triangleEdges = MarchingCubesTables.triangleEdges(triTable);
     }
 
     public List<VoxelCoordinates> generateMesh(List<VoxelCoordinates> voxelData) {
-        int width = 0, height = 0, depth = 0;
+        return generateMesh(VoxelGrid.fromCellCenters(voxelData));
+    }
 
-        List<VoxelCoordinates> meshData = new ArrayList<>();
-        int[][][] scalarField = new int[width][height][depth];
+    public List<VoxelCoordinates> generateMesh(VoxelGrid grid) {
+        return extract(grid).toTriangleList();
+    }
 
-        for (int x = 0; x < width - 1; x++) {
-            for (int y = 0; y < height - 1; y++) {
-                for (int z = 0; z < depth - 1; z++) {
-                    float[] cube = new float[8];
-                    for (int i = 0; i < 8; i++) {
-                        int xi = x + VertexOffset[i][0];
-                        int yi = y + VertexOffset[i][1];
-                        int zi = z + VertexOffset[i][2];
-                        cube[i] = scalarField[xi][yi][zi];
+    public MeshBuffer extract(VoxelGrid grid) {
+        return extract(grid, false);
+    }
+
+    // With normals, every vertex also gets the outward normal of the density field, taken from
+    // central-difference gradients at the edge's corners and interpolated like the position.
+    public MeshBuffer extract(VoxelGrid grid, boolean normals) {
+        MeshBuffer mesh = new MeshBuffer(1024, 2048, normals);
+        extractSlab(grid, 0, grid.getDepth() - 1, mesh, null, null);
+        return mesh;
+    }
+
+    // Serial extraction that reports every finished cell layer, letting the caller drain the buffer
+    // (see MeshBuffer.clear) before the next layer is marched.
+    public void extract(VoxelGrid grid, MeshBuffer mesh, IntConsumer layerDone) {
+        extractSlab(grid, 0, grid.getDepth() - 1, mesh, null, layerDone);
+    }
+
+    // Same as above for volumes that are not held on heap: STREAM_LAYERS cell layers at a time are copied
+    // into a window grid (plus one plane on either side for gradients) and marched, and the x/y edge
+    // vertices on each window's top plane seed the next window, so the output matches a heap grid.
+    public void extract(VoxelVolume volume, MeshBuffer mesh, IntConsumer layerDone) {
+        if (volume instanceof VoxelGrid) {
+            extract((VoxelGrid) volume, mesh, layerDone);
+            return;
+        }
+        int width = volume.getWidth(), height = volume.getHeight(), depth = volume.getDepth();
+        SlabSeams seams = new SlabSeams();
+        for (int zStart = 0; zStart < depth - 1; zStart += STREAM_LAYERS) {
+            int zEnd = Math.min(depth - 1, zStart + STREAM_LAYERS);
+            int first = Math.max(0, zStart - 1), last = Math.min(depth, zEnd + 2);
+            byte[] data = new byte[Math.multiplyExact(Math.multiplyExact(width, height), last - first)];
+            volume.readLayers(first, last, data);
+            VoxelGrid window = new VoxelGrid(width, height, last - first, data,
+                volume.getOriginX(), volume.getOriginY(), volume.getOriginZ() + first * volume.getCellSize(), volume.getCellSize());
+
+            extractSlab(window, zStart - first, zEnd - first, mesh, seams, layerDone == null ? null : z -> layerDone.accept(z + first));
+            seams.seedX = seams.topX;
+            seams.seedY = seams.topY;
+        }
+    }
+
+    // Marches the cell layers [zStart, zEnd). Vertices on x/y edges are shared through a two-slice cache
+    // (bottom and top plane of the current layer) and z edges through a per-layer cache, so every
+    // edge crossing is interpolated and emitted exactly once. When seams is given, the vertex indices of
+    // the x/y edges on the slab's bottom (zStart) and top (zEnd) planes are copied out for stitching, and
+    // seeded x/y edges are reused on the bottom plane instead of being emitted again.
+    void extractSlab(VoxelGrid grid, int zStart, int zEnd, MeshBuffer mesh, SlabSeams seams, IntConsumer layerDone) {
+        int width = grid.getWidth(), height = grid.getHeight();
+        if (width < 2 || height < 2 || zEnd <= zStart) return;
+
+        byte[] data = grid.getData();
+        int plane = width * height;
+        int[][] xEdges = { new int[plane], new int[plane] };
+        int[][] yEdges = { new int[plane], new int[plane] };
+        int[] zEdges = new int[plane];
+        if (seams != null && seams.seedX != null) {
+            System.arraycopy(seams.seedX, 0, xEdges[zStart & 1], 0, plane);
+            System.arraycopy(seams.seedY, 0, yEdges[zStart & 1], 0, plane);
+        } else {
+            Arrays.fill(xEdges[zStart & 1], -1);
+            Arrays.fill(yEdges[zStart & 1], -1);
+        }
+
+        float[] cube = new float[8];
+        int[] vertexList = new int[12];
+        int[] faces = new int[width];
+        int[][] caches = new int[5][];
+        int[] edgeSlots = new int[12];
+        for (int e = 0; e < 12; e++) edgeSlots[e] = EDGE_DX[e] + width * EDGE_DY[e];
+        BrickPyramid bricks = BrickPyramid.build(grid, zStart, zEnd);
+        long active = 0;
+
+        for (int z = zStart; z < zEnd; z++) {
+            int[] xLow = xEdges[z & 1], xHigh = xEdges[(z + 1) & 1];
+            int[] yLow = yEdges[z & 1], yHigh = yEdges[(z + 1) & 1];
+            Arrays.fill(xHigh, -1);
+            Arrays.fill(yHigh, -1);
+            if (bricks.layerActive(z)) {
+                Arrays.fill(zEdges, -1);
+                caches[0] = xLow;
+                caches[1] = yLow;
+                caches[2] = xHigh;
+                caches[3] = yHigh;
+                caches[4] = zEdges;
+
+                for (int y = 0; y < height - 1; y++) {
+                    if (!bricks.rowActive(y, z)) continue;
+                    int row = width * (y + height * z);
+                    classifyColumns(data, row, width, plane, faces);
+                    for (int x = 0; x < width - 1; x++) {
+                        if ((x & (BrickPyramid.BRICK - 1)) == 0 && !bricks.brickActive(x, y, z)) {
+                            x += BrickPyramid.BRICK - 1;
+                            continue;
+                        }
+                        int cubeIndex = CUBE_LOW[faces[x]] | CUBE_HIGH[faces[x + 1]];
+                        int edges = edgeTable[cubeIndex];
+                        if (edges == 0) continue;
+                        active++;
+
+                        int i = row + x;
+                        cube[0] = density(data[i]);
+                        cube[1] = density(data[i + 1]);
+                        cube[2] = density(data[i + 1 + width]);
+                        cube[3] = density(data[i + width]);
+                        cube[4] = density(data[i + plane]);
+                        cube[5] = density(data[i + 1 + plane]);
+                        cube[6] = density(data[i + 1 + width + plane]);
+                        cube[7] = density(data[i + width + plane]);
+
+                        // Set bits are visited lowest first, so vertices are emitted in edge order.
+                        int c = x + width * y;
+                        for (int bits = edges; bits != 0; bits &= bits - 1) {
+                            int e = Integer.numberOfTrailingZeros(bits);
+                            vertexList[e] = EdgeVertex(mesh, grid, caches[EDGE_CACHE[e]], c + edgeSlots[e], cube, x, y, z,
+                                EDGE_CORNERS[2 * e], EDGE_CORNERS[2 * e + 1]);
+                        }
+
+                        int base = cubeIndex * MarchingCubesTables.MAX_TRIANGLE_EDGES;
+                        for (int t = base, end = base + 3 * triangleCounts[cubeIndex]; t < end; t += 3) {
+                            mesh.addTriangle(vertexList[triangleEdges[t]], vertexList[triangleEdges[t + 1]], vertexList[triangleEdges[t + 2]]);
+                        }
                     }
-                    ProcessCube(meshData, cube, x, y, z);
                 }
             }
+
+            if (seams != null && z == zStart) {
+                seams.bottomX = xLow.clone();
+                seams.bottomY = yLow.clone();
+            }
+            if (layerDone != null) layerDone.accept(z);
+        }
+        mesh.addActiveCells(active);
+
+        if (seams != null) {
+            seams.topX = xEdges[zEnd & 1].clone();
+            seams.topY = yEdges[zEnd & 1].clone();
+        }
+    }
+
+    // Number of cells the surface passes through, i.e. the cells extractSlab emits triangles for.
+    public int countActiveCells(VoxelGrid grid) {
+        int width = grid.getWidth(), height = grid.getHeight(), depth = grid.getDepth();
+        if (width < 2 || height < 2) return 0;
+        byte[] data = grid.getData();
+        int plane = width * height;
+        int[] faces = new int[width];
+        int active = 0;
+        for (int z = 0; z < depth - 1; z++) {
+            for (int y = 0; y < height - 1; y++) {
+                classifyColumns(data, width * (y + height * z), width, plane, faces);
+                for (int x = 0; x < width - 1; x++) {
+                    if (edgeTable[CUBE_LOW[faces[x]] | CUBE_HIGH[faces[x + 1]]] != 0) active++;
+                }
+            }
+        }
+        return active;
+    }
+
+    // Inside bits of the four lattice points (y, z), (y + 1, z), (y, z + 1), (y + 1, z + 1) of every
+    // column x in the row starting at index row. A cell's cube index is CUBE_LOW of its left column
+    // ORed with CUBE_HIGH of its right column, so each column is sampled once and shared by the two
+    // cells next to it. Densities above 0.5 are exactly the bytes with the top bit set; the loop has
+    // no branches so the JIT can vectorize it.
+    private static void classifyColumns(byte[] data, int row, int width, int plane, int[] faces) {
+        for (int x = 0; x < width; x++) {
+            int i = row + x;
+            faces[x] = (data[i] & 0x80) >>> 7 | (data[i + width] & 0x80) >>> 6
+                | (data[i + plane] & 0x80) >>> 5 | (data[i + width + plane] & 0x80) >>> 4;
+        }
+    }
+
+    static class SlabSeams {
+        int[] bottomX, bottomY;
+        int[] topX, topY;
+        int[] seedX, seedY;
+    }
+
+    private static float density(byte value) {
+        return (value & 0xFF) / 255f;
+    }
+
+    private static int EdgeVertex(MeshBuffer mesh, VoxelGrid grid, int[] cache, int slot, float[] cube, int x, int y, int z, int p1, int p2) {
+        int vertex = cache[slot];
+        if (vertex < 0) {
+            vertex = VertexInterp(mesh, grid, cube[p1], cube[p2], x, y, z, p1, p2);
+            cache[slot] = vertex;
         }
+        return vertex;
+    }
 
-        return meshData;
-    }
-
-    private void ProcessCube(List<VoxelCoordinates> meshData, float[] cube, int x, int y, int z) {
-        int cubeIndex = 0;
-        if (cube[0] > 0.5f) cubeIndex |= 1;
-        if (cube[1] > 0.5f) cubeIndex |= 2;
-        if (cube[2] > 0.5f) cubeIndex |= 4;
-        if (cube[3] > 0.5f) cubeIndex |= 8;
-        if (cube[4] > 0.5f) cubeIndex |= 16;
-        if (cube[5] > 0.5f) cubeIndex |= 32;
-        if (cube[6] > 0.5f) cubeIndex |= 64;
-        if (cube[7] > 0.5f) cubeIndex |= 128;
-
-        int edges = edgeTable[cubeIndex];
-
-        if (edges == 0) return;
-
-        VoxelCoordinates[] vertexList = new VoxelCoordinates[12];
-        if ((edges & 1) != 0) vertexList[0] = VertexInterp(cube[0], cube[1], x, y, z, 0, 1);
-        if ((edges & 2) != 0) vertexList[1] = VertexInterp(cube[1], cube[2], x, y, z, 1, 2);
-        if ((edges & 4) != 0) vertexList[2] = VertexInterp(cube[2], cube[3], x, y, z, 2, 3);
-        if ((edges & 8) != 0) vertexList[3] = VertexInterp(cube[3], cube[0], x, y, z, 3, 0);
-        if ((edges & 16) != 0) vertexList[4] = VertexInterp(cube[4], cube[5], x, y, z, 4, 5);
-        if ((edges & 32) != 0) vertexList[5] = VertexInterp(cube[5], cube[6], x, y, z, 5, 6);
-        if ((edges & 64) != 0) vertexList[6] = VertexInterp(cube[6], cube[7], x, y, z, 6, 7);
-        if ((edges & 128) != 0) vertexList[7] = VertexInterp(cube[7], cube[4], x, y, z, 7, 4);
-        if ((edges & 256) != 0) vertexList[8] = VertexInterp(cube[0], cube[4], x, y, z, 0, 4);
-        if ((edges & 512) != 0) vertexList[9] = VertexInterp(cube[1], cube[5], x, y, z, 1, 5);
-        if ((edges & 1024) != 0) vertexList[10] = VertexInterp(cube[2], cube[6], x, y, z, 2, 6);
-        if ((edges & 2048) != 0) vertexList[11] = VertexInterp(cube[3], cube[7], x, y, z, 3, 7);
-
-        for (int i = 0; triTable[cubeIndex][i] != -1; i += 3) {
-            meshData.add(vertexList[triTable[cubeIndex][i]]);
-            meshData.add(vertexList[triTable[cubeIndex][i + 1]]);
-            meshData.add(vertexList[triTable[cubeIndex][i + 2]]);
+    static int VertexInterp(MeshBuffer mesh, VoxelGrid grid, float valP1, float valP2, int x, int y, int z, int p1, int p2) {
+        float mu;
+        if (Math.abs(0.5f - valP1) < 0.00001) mu = 0;
+        else if (Math.abs(0.5f - valP2) < 0.00001) mu = 1;
+        else if (Math.abs(valP1 - valP2) < 0.00001) mu = 0;
+        else mu = (0.5f - valP1) / (valP2 - valP1);
+
+        int x1 = x + VertexOffset[p1][0], y1 = y + VertexOffset[p1][1], z1 = z + VertexOffset[p1][2];
+        int x2 = x + VertexOffset[p2][0], y2 = y + VertexOffset[p2][1], z2 = z + VertexOffset[p2][2];
+        int vertex = addVertex(mesh, grid, x1 + mu * (x2 - x1), y1 + mu * (y2 - y1), z1 + mu * (z2 - z1));
+        if (mesh.hasNormals()) {
+            float gx = gradient(grid, x1, y1, z1, 1, 0, 0) * (1 - mu) + gradient(grid, x2, y2, z2, 1, 0, 0) * mu;
+            float gy = gradient(grid, x1, y1, z1, 0, 1, 0) * (1 - mu) + gradient(grid, x2, y2, z2, 0, 1, 0) * mu;
+            float gz = gradient(grid, x1, y1, z1, 0, 0, 1) * (1 - mu) + gradient(grid, x2, y2, z2, 0, 0, 1) * mu;
+            float length = (float) Math.sqrt(gx * gx + gy * gy + gz * gz);
+            // Density increases inwards, so the outward normal is the negated gradient.
+            if (length > 0) mesh.setNormal(vertex, -gx / length, -gy / length, -gz / length);
         }
+        return vertex;
+    }
+
+    // Central difference along one axis, one-sided at the grid border.
+    private static float gradient(VoxelGrid grid, int x, int y, int z, int dx, int dy, int dz) {
+        int lx = Math.max(0, x - dx), ly = Math.max(0, y - dy), lz = Math.max(0, z - dz);
+        int hx = Math.min(grid.getWidth() - 1, x + dx), hy = Math.min(grid.getHeight() - 1, y + dy), hz = Math.min(grid.getDepth() - 1, z + dz);
+        int span = (hx - lx) + (hy - ly) + (hz - lz);
+        return span == 0 ? 0 : (grid.density(hx, hy, hz) - grid.density(lx, ly, lz)) / span;
     }
 
-    private VoxelCoordinates VertexInterp(float valP1, float valP2, int x, int y, int z, int p1, int p2) {
-        if (Math.abs(0.5f - valP1) < 0.00001)
-            return new VoxelCoordinates(x + VertexOffset[p1][0], y + VertexOffset[p1][1], z + VertexOffset[p1][2]);
-        if (Math.abs(0.5f - valP2) < 0.00001)
-            return new VoxelCoordinates(x + VertexOffset[p2][0], y + VertexOffset[p2][1], z + VertexOffset[p2][2]);
-        if (Math.abs(valP1 - valP2) < 0.00001)
-            return new VoxelCoordinates(x + VertexOffset[p1][0], y + VertexOffset[p1][1], z + VertexOffset[p1][2]);
+    private static int addVertex(MeshBuffer mesh, VoxelGrid grid, double x, double y, double z) {
+        return mesh.addVertex((float) grid.worldX(x), (float) grid.worldY(y), (float) grid.worldZ(z));
+    }
 
-        float mu = (0.5f - valP1) / (valP2 - valP1);
-        return new VoxelCoordinates(
-            x + VertexOffset[p1][0] + mu * (VertexOffset[p2][0] - VertexOffset[p1][0]),
-            y + VertexOffset[p1][1] + mu * (VertexOffset[p2][1] - VertexOffset[p1][1]),
-            z + VertexOffset[p1][2] + mu * (VertexOffset[p2][2] - VertexOffset[p1][2])
-        );
+    // Column bits from classifyColumns placed at cube corners 0, 3, 4, 7 (left column) and 1, 2, 5, 6 (right).
+    private static final int[] CUBE_LOW = new int[16];
+    private static final int[] CUBE_HIGH = new int[16];
+    static {
+        for (int f = 0; f < 16; f++) {
+            CUBE_LOW[f] = (f & 1) | (f & 2) << 2 | (f & 4) << 2 | (f & 8) << 4;
+            CUBE_HIGH[f] = (f & 1) << 1 | (f & 2) << 1 | (f & 4) << 3 | (f & 8) << 3;
+        }
     }
 
+    // Per edge: the two corners it joins, the cache it is shared through (x low, y low, x high, y high,
+    // z) and the x/y offset of its cache slot from the cell's lower corner.
+    private static final byte[] EDGE_CORNERS = { 0, 1, 1, 2, 3, 2, 0, 3, 4, 5, 5, 6, 7, 6, 4, 7, 0, 4, 1, 5, 2, 6, 3, 7 };
+    private static final byte[] EDGE_CACHE = { 0, 1, 0, 1, 2, 3, 2, 3, 4, 4, 4, 4 };
+    private static final byte[] EDGE_DX = { 0, 1, 0, 0, 0, 1, 0, 0, 0, 1, 1, 0 };
+    private static final byte[] EDGE_DY = { 0, 0, 1, 0, 0, 0, 1, 0, 0, 0, 1, 1 };
+
     private static final int[][] VertexOffset = new int[][] {
         {0, 0, 0}, {1, 0, 0}, {1, 1, 0}, {0, 1, 0},
         {0, 0, 1}, {1, 0, 1}, {1, 1, 1}, {0, 1, 1}
@@ -295,4 +295,26 @@ public class MarchingCubesTables {
         {0, 3, 8, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1},
         {-1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1}
     };
+
+    public static final int MAX_TRIANGLE_EDGES = 15;
+
+    // Flat forms of triTable for the extraction loop: the number of triangles of every case, and the
+    // edge triples of case i packed into MAX_TRIANGLE_EDGES bytes starting at i * MAX_TRIANGLE_EDGES.
+    public static byte[] triangleCounts(int[][] triTable) {
+        byte[] counts = new byte[triTable.length];
+        for (int i = 0; i < triTable.length; i++) {
+            int n = 0;
+            while (n < triTable[i].length && triTable[i][n] != -1) n++;
+            counts[i] = (byte) (n / 3);
+        }
+        return counts;
+    }
+
+    public static byte[] triangleEdges(int[][] triTable) {
+        byte[] edges = new byte[triTable.length * MAX_TRIANGLE_EDGES];
+        for (int i = 0; i < triTable.length; i++) {
+            for (int n = 0; n < MAX_TRIANGLE_EDGES && triTable[i][n] != -1; n++) edges[i * MAX_TRIANGLE_EDGES + n] = (byte) triTable[i][n];
+        }
+        return edges;
+    }
 }
@@ -0,0 +1,233 @@
+package com.example.server;
+
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+// Meshes the volumes of a /upload/batch payload one per task on a fixed pool of platform threads, so
+// throughput follows the core count rather than the request count. Volumes are decoded on the calling
+// thread while earlier ones are being meshed; at most max-in-flight decoded volumes per batch are held at
+// once, and results are written by the calling thread as they complete. Identical volumes that are being
+// meshed at the same time share one extraction. Memory is bounded across all batches: each item may decode
+// at most max-item-cells cells, and decoded grids waiting for or under extraction share a budget of
+// max-in-flight-cells, which a batch waits on before submitting its next item.
+@Component
+public class MeshBatchProcessor {
+
+    private final MarchingCubes marchingCubes;
+    private final MeshCache meshCache;
+    private final MeshMetrics meshMetrics;
+    private final VoxelWireFormat.Limits limits;
+    private final ThreadPoolExecutor executor;
+    private final int maxInFlight;
+    private final Semaphore cellBudget;
+    private final int maxInFlightCells;
+    private final Map<String, CompletableFuture<MeshBuffer>> extracting = new ConcurrentHashMap<>();
+
+    public MeshBatchProcessor(MarchingCubes marchingCubes, MeshCache meshCache, MeshMetrics meshMetrics, VoxelWireFormat.Limits limits,
+                              @Value("${mesh.batch.threads:0}") int threads,
+                              @Value("${mesh.batch.max-in-flight:0}") int maxInFlight,
+                              @Value("${mesh.batch.max-item-cells:16777216}") long maxItemCells,
+                              @Value("${mesh.batch.max-in-flight-cells:268435456}") int maxInFlightCells) {
+        this.marchingCubes = marchingCubes;
+        this.meshCache = meshCache;
+        this.meshMetrics = meshMetrics;
+        long itemCells = Math.min(maxItemCells, maxInFlightCells);
+        this.limits = new VoxelWireFormat.Limits(Math.min(limits.getMaxHeapCells(), itemCells), limits.getHeapCellLimit(),
+            limits.getMaxCells(), limits.getMaxElements());
+        this.maxInFlightCells = maxInFlightCells;
+        this.cellBudget = new Semaphore(maxInFlightCells);
+
+        int workers = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.maxInFlight = maxInFlight > 0 ? maxInFlight : 2 * workers;
+        AtomicInteger names = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), task -> {
+            Thread thread = new Thread(task, "mesh-batch-" + names.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private record Result(int id, MeshBuffer mesh, String failure) {}
+
+    // Reads count (id, length, volume) items from in and writes one batch record per item to out. An item
+    // that fails to decode is reported as failed and skipped; a payload that ends early aborts the batch.
+    public void process(InputStream in, int count, OutputStream out) throws IOException {
+        CompletionService<Result> completion = new ExecutorCompletionService<>(executor);
+        int pending = 0;
+        for (int n = 0; n < count; n++) {
+            int id = VoxelWireFormat.readBatchId(in);
+            int length = VoxelWireFormat.readBatchItemLength(in);
+            ItemInputStream item = new ItemInputStream(in, length);
+            VoxelGrid grid = null;
+            String failure = null;
+            try {
+                grid = VoxelWireFormat.readGrid(item, length, limits);
+            } catch (IOException | IllegalArgumentException | ArithmeticException e) {
+                if (item.truncated) throw e;
+                failure = String.valueOf(e.getMessage());
+            }
+            item.skipRemaining();
+
+            if (grid == null) {
+                write(new Result(id, null, failure), out);
+            } else {
+                VoxelGrid volume = grid;
+                int cells = Math.min(grid.getData().length, maxInFlightCells);
+                acquire(cells);
+                try {
+                    completion.submit(() -> {
+                        try {
+                            return mesh(id, volume);
+                        } finally {
+                            cellBudget.release(cells);
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    cellBudget.release(cells);
+                    throw new IOException("Batch processor is shutting down", e);
+                }
+                pending++;
+            }
+
+            Future<Result> done;
+            while ((done = pending >= maxInFlight ? take(completion) : completion.poll()) != null) {
+                write(get(done), out);
+                pending--;
+            }
+        }
+        for (; pending > 0; pending--) write(get(take(completion)), out);
+    }
+
+    private Result mesh(int id, VoxelGrid grid) {
+        try {
+            return new Result(id, extract(grid), null);
+        } catch (RuntimeException e) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            return new Result(id, null, String.valueOf(cause.getMessage()));
+        }
+    }
+
+    private MeshBuffer extract(VoxelGrid grid) {
+        String key = MeshCache.key(grid, MeshCache.DEFAULT_OPTIONS);
+        MeshBuffer cached = meshCache.get(key);
+        if (cached != null) return cached;
+
+        CompletableFuture<MeshBuffer> own = new CompletableFuture<>();
+        CompletableFuture<MeshBuffer> running = extracting.putIfAbsent(key, own);
+        if (running != null) return running.join();
+        try {
+            meshMetrics.recordGrid(grid);
+            MeshBuffer mesh = meshMetrics.time("extract", () -> marchingCubes.extract(grid));
+            meshMetrics.recordMesh(mesh);
+            mesh.trimToSize();
+            meshCache.put(key, mesh);
+            own.complete(mesh);
+            return mesh;
+        } catch (RuntimeException e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            extracting.remove(key, own);
+        }
+    }
+
+    private void acquire(int cells) throws IOException {
+        try {
+            cellBudget.acquire(cells);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for batch memory", e);
+        }
+    }
+
+    private static Future<Result> take(CompletionService<Result> completion) throws IOException {
+        try {
+            return completion.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while meshing batch", e);
+        }
+    }
+
+    private static Result get(Future<Result> done) throws IOException {
+        try {
+            return done.get();
+        } catch (InterruptedException | ExecutionException e) {
+            throw new IOException("Batch item did not complete", e);
+        }
+    }
+
+    private static void write(Result result, OutputStream out) throws IOException {
+        if (result.failure() == null) VoxelWireFormat.writeBatchMesh(result.id(), result.mesh(), out);
+        else VoxelWireFormat.writeBatchFailure(result.id(), result.failure(), out);
+        out.flush();
+    }
+
+    // View of the next length bytes of the batch body, so a rejected item can be skipped without losing
+    // the position of the next one.
+    private static final class ItemInputStream extends FilterInputStream {
+        private long remaining;
+        boolean truncated;
+
+        ItemInputStream(InputStream in, long length) {
+            super(in);
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining == 0) return -1;
+            int b = super.read();
+            if (b < 0) truncated = true;
+            else remaining--;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (remaining == 0) return -1;
+            int n = super.read(buffer, offset, (int) Math.min(length, remaining));
+            if (n < 0) truncated = true;
+            else remaining -= n;
+            return n;
+        }
+
+        void skipRemaining() throws IOException {
+            while (remaining > 0) {
+                long skipped = super.skip(remaining);
+                if (skipped <= 0) {
+                    if (super.read() < 0) throw new EOFException("Truncated batch item");
+                    skipped = 1;
+                }
+                remaining -= skipped;
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.server;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class MeshBuffer {
+
+    private float[] positions;
+    private float[] normals;
+    private int[] indices;
+    private int vertexCount;
+    private int indexCount;
+    private int vertexBase;
+    private long activeCells;
+
+    public MeshBuffer() {
+        this(1024, 2048);
+    }
+
+    public MeshBuffer(int vertexCapacity, int triangleCapacity) {
+        this(vertexCapacity, triangleCapacity, false);
+    }
+
+    public MeshBuffer(int vertexCapacity, int triangleCapacity, boolean withNormals) {
+        this.positions = new float[Math.max(1, vertexCapacity) * 3];
+        this.normals = withNormals ? new float[positions.length] : null;
+        this.indices = new int[Math.max(1, triangleCapacity) * 3];
+    }
+
+    public MeshBuffer(float[] positions, int[] indices) {
+        this(positions, null, indices);
+    }
+
+    public MeshBuffer(float[] positions, float[] normals, int[] indices) {
+        if (positions.length % 3 != 0 || indices.length % 3 != 0)
+            throw new IllegalArgumentException("Positions and indices must come in triples");
+        if (normals != null && normals.length != positions.length)
+            throw new IllegalArgumentException("Normals must match positions");
+        this.positions = positions;
+        this.normals = normals;
+        this.indices = indices;
+        this.vertexCount = positions.length / 3;
+        this.indexCount = indices.length;
+    }
+
+    public int addVertex(float x, float y, float z) {
+        int offset = vertexCount * 3;
+        if (offset + 3 > positions.length) {
+            positions = Arrays.copyOf(positions, grow(positions.length, offset + 3));
+            if (normals != null) normals = Arrays.copyOf(normals, positions.length);
+        }
+        positions[offset] = x;
+        positions[offset + 1] = y;
+        positions[offset + 2] = z;
+        return vertexBase + vertexCount++;
+    }
+
+    public void setNormal(int vertex, float nx, float ny, float nz) {
+        int offset = (vertex - vertexBase) * 3;
+        normals[offset] = nx;
+        normals[offset + 1] = ny;
+        normals[offset + 2] = nz;
+    }
+
+    public void addTriangle(int a, int b, int c) {
+        if (indexCount + 3 > indices.length)
+            indices = Arrays.copyOf(indices, grow(indices.length, indexCount + 3));
+        indices[indexCount] = a;
+        indices[indexCount + 1] = b;
+        indices[indexCount + 2] = c;
+        indexCount += 3;
+    }
+
+    // Drops the buffered vertices and triangles once they have been written out. Vertex numbering
+    // continues, so indices of later triangles stay valid across chunks.
+    public void clear() {
+        vertexBase += vertexCount;
+        vertexCount = 0;
+        indexCount = 0;
+    }
+
+    // Statistic kept by the extraction: cells the surface passed through while filling this buffer.
+    public void addActiveCells(long cells) {
+        activeCells += cells;
+    }
+
+    public void trimToSize() {
+        positions = Arrays.copyOf(positions, vertexCount * 3);
+        if (normals != null) normals = Arrays.copyOf(normals, vertexCount * 3);
+        indices = Arrays.copyOf(indices, indexCount);
+    }
+
+    private static int grow(int current, int required) {
+        return Math.max(required, current + (current >> 1));
+    }
+
+    public int getVertexCount() { return vertexCount; }
+    public int getIndexCount() { return indexCount; }
+    public int getTriangleCount() { return indexCount / 3; }
+    public int getVertexBase() { return vertexBase; }
+    public boolean hasNormals() { return normals != null; }
+    public long getActiveCells() { return activeCells; }
+
+    // Backing arrays; only the first getVertexCount() * 3 / getIndexCount() entries are valid.
+    public float[] getPositions() { return positions; }
+    public float[] getNormals() { return normals; }
+    public int[] getIndices() { return indices; }
+
+    public List<VoxelCoordinates> toTriangleList() {
+        List<VoxelCoordinates> triangles = new ArrayList<>(indexCount);
+        for (int i = 0; i < indexCount; i++) {
+            int offset = (indices[i] - vertexBase) * 3;
+            triangles.add(new VoxelCoordinates(positions[offset], positions[offset + 1], positions[offset + 2]));
+        }
+        return triangles;
+    }
+}
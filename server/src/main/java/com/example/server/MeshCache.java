@@ -0,0 +1,169 @@
+package com.example.server;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class MeshCache {
+
+    public static final String DEFAULT_OPTIONS = "iso0.5";
+
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private final long maxBytes;
+    private final LinkedHashMap<String, MeshBuffer> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long currentBytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public MeshCache(@Value("${mesh.cache.max-bytes:268435456}") long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    // Content address of a grid plus the extraction options: a 128-bit Murmur3 hash of the cells,
+    // seeded with the dimensions and world placement.
+    public static String key(VoxelGrid grid, String options) {
+        long h1 = grid.getWidth() * 0x9E3779B97F4A7C15L ^ grid.getHeight();
+        long h2 = grid.getDepth() * 0xC2B2AE3D27D4EB4FL ^ Double.doubleToLongBits(grid.getCellSize());
+        h1 ^= Double.doubleToLongBits(grid.getOriginX()) + 31 * Double.doubleToLongBits(grid.getOriginY());
+        h2 ^= Double.doubleToLongBits(grid.getOriginZ()) + 31 * options.hashCode();
+
+        byte[] data = grid.getData();
+        int blocks = data.length / 16;
+        for (int i = 0; i < blocks; i++) {
+            long k1 = (long) LONGS.get(data, i * 16);
+            long k2 = (long) LONGS.get(data, i * 16 + 8);
+            h1 ^= mixK1(k1);
+            h1 = Long.rotateLeft(h1, 27) + h2;
+            h1 = h1 * 5 + 0x52dce729;
+            h2 ^= mixK2(k2);
+            h2 = Long.rotateLeft(h2, 31) + h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+
+        long k1 = 0, k2 = 0;
+        for (int i = data.length - 1; i >= blocks * 16; i--) {
+            int shift = (i - blocks * 16) % 8 * 8;
+            if (i - blocks * 16 >= 8) k2 ^= (data[i] & 0xFFL) << shift;
+            else k1 ^= (data[i] & 0xFFL) << shift;
+        }
+        h1 ^= mixK1(k1);
+        h2 ^= mixK2(k2);
+
+        h1 ^= data.length;
+        h2 ^= data.length;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix(h1);
+        h2 = fmix(h2);
+        h1 += h2;
+        h2 += h1;
+        return String.format("%016x%016x-%s", h1, h2, options);
+    }
+
+    private static long mixK1(long k1) {
+        return Long.rotateLeft(k1 * C1, 31) * C2;
+    }
+
+    private static long mixK2(long k2) {
+        return Long.rotateLeft(k2 * C2, 33) * C1;
+    }
+
+    private static long fmix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    public MeshBuffer get(String key) {
+        synchronized (entries) {
+            MeshBuffer mesh = entries.get(key);
+            if (mesh != null) hits.increment();
+            else misses.increment();
+            return mesh;
+        }
+    }
+
+    // Membership check for conditional requests; unlike get it neither counts nor refreshes recency.
+    public boolean contains(String key) {
+        synchronized (entries) {
+            return entries.containsKey(key);
+        }
+    }
+
+    // Lookup that, like contains, leaves the statistics and recency untouched.
+    public MeshBuffer peek(String key) {
+        synchronized (entries) {
+            return entries.get(key);
+        }
+    }
+
+    // Returns false when the mesh alone is larger than the cache and was not stored.
+    public boolean put(String key, MeshBuffer mesh) {
+        long weight = weigh(mesh);
+        if (weight > maxBytes) return false;
+        synchronized (entries) {
+            MeshBuffer previous = entries.put(key, mesh);
+            if (previous != null) currentBytes -= weigh(previous);
+            currentBytes += weight;
+
+            Iterator<Map.Entry<String, MeshBuffer>> eldest = entries.entrySet().iterator();
+            while (currentBytes > maxBytes && eldest.hasNext()) {
+                Map.Entry<String, MeshBuffer> entry = eldest.next();
+                if (entry.getValue() == mesh) continue;
+                currentBytes -= weigh(entry.getValue());
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+        return true;
+    }
+
+    // Concurrent misses on the same key may compute the mesh more than once; the last result wins.
+    public MeshBuffer computeIfAbsent(String key, Supplier<MeshBuffer> extraction) {
+        MeshBuffer mesh = get(key);
+        if (mesh == null) {
+            mesh = extraction.get();
+            mesh.trimToSize();
+            put(key, mesh);
+        }
+        return mesh;
+    }
+
+    private static long weigh(MeshBuffer mesh) {
+        long normals = mesh.hasNormals() ? mesh.getNormals().length * 4L : 0;
+        return mesh.getPositions().length * 4L + normals + mesh.getIndices().length * 4L;
+    }
+
+    public long getHitCount() { return hits.sum(); }
+    public long getMissCount() { return misses.sum(); }
+    public long getEvictionCount() { return evictions.sum(); }
+
+    public long getWeightedSize() {
+        synchronized (entries) {
+            return currentBytes;
+        }
+    }
+
+    public int getEntryCount() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+}
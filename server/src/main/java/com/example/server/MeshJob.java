@@ -0,0 +1,112 @@
+package com.example.server;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+// A queued extraction. State changes and whole-percent progress steps are pushed to listeners (the SSE
+// streams of /jobs/{id}/events); pollers read the same fields through MeshJobStatus. Listeners run on the
+// worker thread, outside the job's lock, so they must only hand the update off and never block. A finished
+// job keeps only the cache key of its mesh, so results are bounded and evicted by the MeshCache.
+public class MeshJob {
+
+    public enum State { QUEUED, RUNNING, DONE, FAILED, CANCELLED }
+
+    private final String id;
+    private final List<Consumer<MeshJob>> listeners = new CopyOnWriteArrayList<>();
+    private volatile State state = State.QUEUED;
+    private volatile int percent;
+    private volatile String resultKey;
+    private volatile int vertexCount;
+    private volatile int triangleCount;
+    private volatile String error;
+    private volatile long finishedAt;
+
+    public MeshJob(String id) {
+        this.id = id;
+    }
+
+    // Registers the listener and immediately reports the current state to it.
+    public void addListener(Consumer<MeshJob> listener) {
+        listeners.add(listener);
+        listener.accept(this);
+    }
+
+    public void removeListener(Consumer<MeshJob> listener) {
+        listeners.remove(listener);
+    }
+
+    boolean start() {
+        synchronized (this) {
+            if (state != State.QUEUED) return false;
+            state = State.RUNNING;
+        }
+        notifyListeners();
+        return true;
+    }
+
+    void progress(float fraction) {
+        int next = Math.min(99, (int) (fraction * 100));
+        if (next <= percent) return;
+        percent = next;
+        notifyListeners();
+    }
+
+    void complete(String key, MeshBuffer mesh) {
+        synchronized (this) {
+            if (isFinished()) return;
+            resultKey = key;
+            vertexCount = mesh.getVertexCount();
+            triangleCount = mesh.getTriangleCount();
+            percent = 100;
+            finish(State.DONE);
+        }
+        notifyFinished();
+    }
+
+    void fail(String message) {
+        synchronized (this) {
+            if (isFinished()) return;
+            error = message;
+            finish(State.FAILED);
+        }
+        notifyFinished();
+    }
+
+    boolean cancel() {
+        synchronized (this) {
+            if (isFinished()) return false;
+            finish(State.CANCELLED);
+        }
+        notifyFinished();
+        return true;
+    }
+
+    private void finish(State terminal) {
+        finishedAt = System.currentTimeMillis();
+        state = terminal;
+    }
+
+    private void notifyFinished() {
+        notifyListeners();
+        listeners.clear();
+    }
+
+    private void notifyListeners() {
+        for (Consumer<MeshJob> listener : listeners) listener.accept(this);
+    }
+
+    public boolean isFinished() {
+        State s = state;
+        return s == State.DONE || s == State.FAILED || s == State.CANCELLED;
+    }
+
+    public String getId() { return id; }
+    public State getState() { return state; }
+    public int getPercent() { return percent; }
+    public String getResultKey() { return resultKey; }
+    public int getVertexCount() { return vertexCount; }
+    public int getTriangleCount() { return triangleCount; }
+    public String getError() { return error; }
+    public long getFinishedAt() { return finishedAt; }
+}
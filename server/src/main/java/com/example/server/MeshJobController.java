@@ -0,0 +1,153 @@
+package com.example.server;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import jakarta.annotation.PreDestroy;
+
+@RestController
+public class MeshJobController {
+
+    @Autowired
+    private MeshJobQueue jobQueue;
+
+    // Sends SSE updates so that a slow or stalled client holds one of these threads instead of a job worker.
+    private final ExecutorService eventExecutor = Executors.newCachedThreadPool(task -> {
+        Thread thread = new Thread(task, "mesh-job-events");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    private VoxelWireFormat.Limits wireFormatLimits;
+
+    @PostMapping(value = "/jobs", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<MeshJobStatus> submitJob(@RequestBody List<VoxelCoordinates> coordinates) {
+        VoxelGrid grid;
+        try {
+            grid = VoxelGrid.fromCellCenters(coordinates, 0, wireFormatLimits.getMaxHeapCells());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+        return submit(grid);
+    }
+
+    @PostMapping(value = "/jobs", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<MeshJobStatus> submitJobBinary(@RequestBody VoxelGrid grid) {
+        return submit(grid);
+    }
+
+    @GetMapping("/jobs/{id}")
+    public MeshJobStatus getJob(@PathVariable String id) {
+        return new MeshJobStatus(find(id));
+    }
+
+    @GetMapping(value = "/jobs/{id}/result", produces = MediaType.APPLICATION_JSON_VALUE)
+    public List<VoxelCoordinates> getResult(@PathVariable String id) {
+        return result(id).toTriangleList();
+    }
+
+    @GetMapping(value = "/jobs/{id}/result", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public MeshBuffer getResultBinary(@PathVariable String id) {
+        return result(id);
+    }
+
+    // Server-sent "status" events carrying MeshJobStatus, one per state change or progress percent; the
+    // stream completes after the terminal state has been sent. The job worker only flags that an update is
+    // pending; the send happens on eventExecutor, and updates that arrive while a client is slow are
+    // coalesced into the latest status.
+    @GetMapping(value = "/jobs/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamJob(@PathVariable String id) {
+        MeshJob job = find(id);
+        SseEmitter emitter = new SseEmitter(0L);
+        AtomicBoolean pending = new AtomicBoolean();
+        Consumer<MeshJob> listener = new Consumer<>() {
+            @Override
+            public void accept(MeshJob update) {
+                if (pending.getAndSet(true)) return;
+                try {
+                    eventExecutor.execute(() -> sendPending(update, emitter, pending, this));
+                } catch (RejectedExecutionException e) {
+                    update.removeListener(this);
+                }
+            }
+        };
+        emitter.onCompletion(() -> job.removeListener(listener));
+        emitter.onError(e -> job.removeListener(listener));
+        job.addListener(listener);
+        return emitter;
+    }
+
+    private static void sendPending(MeshJob job, SseEmitter emitter, AtomicBoolean pending, Consumer<MeshJob> listener) {
+        synchronized (emitter) {
+            while (pending.getAndSet(false)) {
+                MeshJobStatus status = new MeshJobStatus(job);
+                try {
+                    emitter.send(SseEmitter.event().name("status").data(status, MediaType.APPLICATION_JSON));
+                    if (status.getState() != MeshJob.State.QUEUED && status.getState() != MeshJob.State.RUNNING) {
+                        emitter.complete();
+                        return;
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    job.removeListener(listener);
+                    return;
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        eventExecutor.shutdownNow();
+    }
+
+    @DeleteMapping("/jobs/{id}")
+    public ResponseEntity<Void> cancelJob(@PathVariable String id) {
+        if (!jobQueue.cancel(id)) throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown job " + id);
+        return ResponseEntity.noContent().build();
+    }
+
+    private ResponseEntity<MeshJobStatus> submit(VoxelGrid grid) {
+        MeshJob job;
+        try {
+            job = jobQueue.submit(grid);
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, e.getMessage(), e);
+        }
+        return ResponseEntity.accepted().location(URI.create("/jobs/" + job.getId())).body(new MeshJobStatus(job));
+    }
+
+    private MeshBuffer result(String id) {
+        MeshJob job = find(id);
+        if (job.getState() != MeshJob.State.DONE)
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Job " + id + " is " + job.getState());
+        MeshBuffer mesh = jobQueue.result(job);
+        if (mesh == null) throw new ResponseStatusException(HttpStatus.GONE, "Result of job " + id + " has been evicted; submit it again");
+        return mesh;
+    }
+
+    private MeshJob find(String id) {
+        MeshJob job = jobQueue.get(id);
+        if (job == null) throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown job " + id);
+        return job;
+    }
+}
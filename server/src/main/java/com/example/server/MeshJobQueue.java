@@ -0,0 +1,126 @@
+package com.example.server;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+// Runs extractions off the request threads on a fixed number of workers with a bounded backlog. Extraction
+// is CPU bound, so the workers are platform threads sized to the concurrency limit; submissions beyond
+// the backlog are rejected instead of queueing without limit.
+@Component
+public class MeshJobQueue {
+
+    private final MarchingCubes marchingCubes;
+    private final MeshCache meshCache;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, MeshJob> jobs = new ConcurrentHashMap<>();
+    private final long retentionMillis;
+
+    public MeshJobQueue(MarchingCubes marchingCubes, MeshCache meshCache,
+                        @Value("${mesh.jobs.concurrency:2}") int concurrency,
+                        @Value("${mesh.jobs.queue-depth:16}") int queueDepth,
+                        @Value("${mesh.jobs.retention-seconds:600}") long retentionSeconds) {
+        this.marchingCubes = marchingCubes;
+        this.meshCache = meshCache;
+        this.retentionMillis = retentionSeconds * 1000;
+
+        BlockingQueue<Runnable> backlog = queueDepth > 0 ? new ArrayBlockingQueue<>(queueDepth) : new SynchronousQueue<>();
+        AtomicInteger workers = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(concurrency, concurrency, 0, TimeUnit.MILLISECONDS, backlog, task -> {
+            Thread thread = new Thread(task, "mesh-job-" + workers.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Cached meshes complete immediately without taking a worker or a backlog slot. They are not recorded
+    // in jobs either: the cache key serves as the job id and get resolves it against the cache, so
+    // repeated submissions of cached grids cannot grow the job table past the worker and backlog cap.
+    public MeshJob submit(VoxelGrid grid) {
+        expireFinished();
+        String key = MeshCache.key(grid, MeshCache.DEFAULT_OPTIONS);
+        MeshBuffer cached = meshCache.get(key);
+        if (cached != null) return completed(key, cached);
+
+        MeshJob job = new MeshJob(UUID.randomUUID().toString());
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> run(job, grid, key));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            throw new IllegalStateException("Mesh job queue is full", e);
+        }
+        return job;
+    }
+
+    private void run(MeshJob job, VoxelGrid grid, String key) {
+        if (!job.start()) return;
+        try {
+            MeshBuffer mesh = new MeshBuffer();
+            float layers = Math.max(1, grid.getDepth() - 1);
+            marchingCubes.extract(grid, mesh, z -> {
+                if (job.isFinished()) throw new CancellationException();
+                job.progress((z + 1) / layers);
+            });
+            mesh.trimToSize();
+            if (meshCache.put(key, mesh)) job.complete(key, mesh);
+            else job.fail("Mesh of " + mesh.getTriangleCount() + " triangles does not fit in the result cache");
+        } catch (CancellationException e) {
+            // Cancelled while running; the job already reports CANCELLED.
+        } catch (RuntimeException e) {
+            job.fail(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        }
+    }
+
+    public MeshJob get(String id) {
+        MeshJob job = jobs.get(id);
+        if (job != null) return job;
+        MeshBuffer cached = meshCache.peek(id);
+        return cached != null ? completed(id, cached) : null;
+    }
+
+    // Null once the cache has evicted the mesh of a finished job.
+    public MeshBuffer result(MeshJob job) {
+        return job.getResultKey() != null ? meshCache.get(job.getResultKey()) : null;
+    }
+
+    private static MeshJob completed(String id, MeshBuffer mesh) {
+        MeshJob job = new MeshJob(id);
+        job.complete(id, mesh);
+        return job;
+    }
+
+    public boolean cancel(String id) {
+        MeshJob job = jobs.remove(id);
+        if (job == null) return false;
+        job.cancel();
+        return true;
+    }
+
+    public int getQueuedCount() { return executor.getQueue().size(); }
+    public int getActiveCount() { return executor.getActiveCount(); }
+    public int getJobCount() { return jobs.size(); }
+
+    private void expireFinished() {
+        long cutoff = System.currentTimeMillis() - retentionMillis;
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt() < cutoff);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.server;
+
+public class MeshJobStatus {
+    private final String id;
+    private final MeshJob.State state;
+    private final int percent;
+    private final int vertexCount;
+    private final int triangleCount;
+    private final String error;
+
+    public MeshJobStatus(MeshJob job) {
+        this.id = job.getId();
+        this.state = job.getState();
+        this.percent = job.getPercent();
+        this.vertexCount = job.getVertexCount();
+        this.triangleCount = job.getTriangleCount();
+        this.error = job.getError();
+    }
+
+    public String getId() { return id; }
+    public MeshJob.State getState() { return state; }
+    public int getPercent() { return percent; }
+    public int getVertexCount() { return vertexCount; }
+    public int getTriangleCount() { return triangleCount; }
+    public String getError() { return error; }
+}
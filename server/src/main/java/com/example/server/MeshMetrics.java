@@ -0,0 +1,110 @@
+package com.example.server;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+// Pipeline meters published through Actuator (/actuator/prometheus). Stage timers are tagged with the
+// stage name (decode, grid, smooth, extract, simplify, encode); sizes are distribution summaries with
+// percentile histograms so SLOs can be set on them. JVM GC and allocation meters come from Actuator.
+@Component
+public class MeshMetrics {
+
+    private static final com.sun.management.ThreadMXBean THREADS = threadBean();
+
+    private static final String[] STAGES = { "decode", "grid", "smooth", "extract", "simplify", "encode" };
+
+    private final MeterRegistry registry;
+    private final Map<String, Timer> stages = new ConcurrentHashMap<>();
+    private final DistributionSummary inputVoxels;
+    private final DistributionSummary gridCells;
+    private final DistributionSummary activeCells;
+    private final DistributionSummary triangles;
+    private final DistributionSummary bytesIn;
+    private final DistributionSummary bytesOut;
+    private final DistributionSummary allocated;
+
+    public MeshMetrics(MeterRegistry registry, MeshCache meshCache, MeshJobQueue jobQueue) {
+        this.registry = registry;
+        this.inputVoxels = summary("mesh.input.voxels", "voxels", "Voxel cell centers per JSON request");
+        this.gridCells = summary("mesh.grid.cells", "cells", "Lattice points in the padded grid");
+        this.activeCells = summary("mesh.active.cells", "cells", "Cells the surface passes through");
+        this.triangles = summary("mesh.output.triangles", "triangles", "Triangles per produced mesh");
+        this.bytesIn = DistributionSummary.builder("mesh.payload.bytes").tag("direction", "in").baseUnit("bytes").publishPercentileHistogram().register(registry);
+        this.bytesOut = DistributionSummary.builder("mesh.payload.bytes").tag("direction", "out").baseUnit("bytes").publishPercentileHistogram().register(registry);
+        this.allocated = summary("mesh.request.allocated", "bytes", "Heap allocated by the request thread");
+
+        FunctionCounter.builder("mesh.cache.requests", meshCache, MeshCache::getHitCount).tag("result", "hit").register(registry);
+        FunctionCounter.builder("mesh.cache.requests", meshCache, MeshCache::getMissCount).tag("result", "miss").register(registry);
+        FunctionCounter.builder("mesh.cache.evictions", meshCache, MeshCache::getEvictionCount).register(registry);
+        Gauge.builder("mesh.cache.size", meshCache, MeshCache::getWeightedSize).baseUnit("bytes").register(registry);
+        Gauge.builder("mesh.jobs.queued", jobQueue, MeshJobQueue::getQueuedCount).register(registry);
+        Gauge.builder("mesh.jobs.active", jobQueue, MeshJobQueue::getActiveCount).register(registry);
+        for (String stage : STAGES) stage(stage);
+    }
+
+    private DistributionSummary summary(String name, String unit, String description) {
+        return DistributionSummary.builder(name).baseUnit(unit).description(description).publishPercentileHistogram().register(registry);
+    }
+
+    private Timer stage(String stage) {
+        return stages.computeIfAbsent(stage, s -> Timer.builder("mesh.stage").tag("stage", s).publishPercentileHistogram().register(registry));
+    }
+
+    public <T> T time(String stage, Supplier<T> work) {
+        return stage(stage).record(work);
+    }
+
+    public void recordStage(String stage, long nanos) {
+        stage(stage).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordInput(int voxels) {
+        inputVoxels.record(voxels);
+    }
+
+    public void recordGrid(VoxelVolume volume) {
+        gridCells.record((double) volume.getWidth() * volume.getHeight() * volume.getDepth());
+    }
+
+    public void recordMesh(MeshBuffer mesh) {
+        recordMesh(mesh.getActiveCells(), mesh.getTriangleCount());
+    }
+
+    public void recordMesh(long cells, long triangleCount) {
+        activeCells.record(cells);
+        triangles.record(triangleCount);
+    }
+
+    public void recordPayload(long in, long out) {
+        if (in > 0) bytesIn.record(in);
+        if (out > 0) bytesOut.record(out);
+    }
+
+    public void recordAllocated(long bytes) {
+        if (bytes >= 0) allocated.record(bytes);
+    }
+
+    // Bytes allocated so far by the calling thread, or -1 where the JVM does not track it.
+    public static long allocatedBytes() {
+        return THREADS != null ? THREADS.getCurrentThreadAllocatedBytes() : -1;
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean && bean.isThreadAllocatedMemorySupported()) {
+            bean.setThreadAllocatedMemoryEnabled(true);
+            return bean;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.server;
+
+import java.lang.reflect.Type;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+// Times the decode stage (JSON or binary body to VoxelGrid/MeshBuffer, including the grid build for binary
+// bodies) and marks where encoding starts for MeshMetricsFilter.
+@ControllerAdvice(assignableTypes = { VoxelController.class, VoxelizationController.class, MeshJobController.class, SessionController.class })
+public class MeshMetricsAdvice extends RequestBodyAdviceAdapter implements ResponseBodyAdvice<Object> {
+
+    private static final String DECODE_START = MeshMetricsAdvice.class.getName() + ".decodeStart";
+
+    @Autowired
+    private MeshMetrics meshMetrics;
+
+    @Override
+    public boolean supports(MethodParameter parameter, Type targetType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public HttpInputMessage beforeBodyRead(HttpInputMessage inputMessage, MethodParameter parameter, Type targetType,
+                                           Class<? extends HttpMessageConverter<?>> converterType) {
+        RequestContextHolder.currentRequestAttributes().setAttribute(DECODE_START, System.nanoTime(), RequestAttributes.SCOPE_REQUEST);
+        return inputMessage;
+    }
+
+    @Override
+    public Object afterBodyRead(Object body, HttpInputMessage inputMessage, MethodParameter parameter, Type targetType,
+                                Class<? extends HttpMessageConverter<?>> converterType) {
+        Object start = RequestContextHolder.currentRequestAttributes().getAttribute(DECODE_START, RequestAttributes.SCOPE_REQUEST);
+        if (start instanceof Long nanos) meshMetrics.recordStage("decode", System.nanoTime() - nanos);
+        return body;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType contentType,
+                                  Class<? extends HttpMessageConverter<?>> converterType, ServerHttpRequest request, ServerHttpResponse response) {
+        if (request instanceof ServletServerHttpRequest servletRequest)
+            servletRequest.getServletRequest().setAttribute(MeshMetricsFilter.ENCODE_START, System.nanoTime());
+        return body;
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.server;
+
+import java.io.IOException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+// Counts request and response body bytes of the meshing endpoints, heap allocated by the request thread,
+// and the encode stage: the time between MeshMetricsAdvice handing the body to a converter and the end of
+// the request. Streaming responses report their bytes when the async request completes.
+@Component
+public class MeshMetricsFilter extends OncePerRequestFilter {
+
+    static final String ENCODE_START = MeshMetricsFilter.class.getName() + ".encodeStart";
+
+    @Autowired
+    private MeshMetrics meshMetrics;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !(path.startsWith("/upload") || path.startsWith("/voxelize") || path.startsWith("/jobs") || path.startsWith("/sessions"));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain) throws ServletException, IOException {
+        CountingRequest countingRequest = new CountingRequest(request);
+        CountingResponse countingResponse = new CountingResponse(response);
+        long allocatedBefore = MeshMetrics.allocatedBytes();
+
+        chain.doFilter(countingRequest, countingResponse);
+
+        if (allocatedBefore >= 0) meshMetrics.recordAllocated(MeshMetrics.allocatedBytes() - allocatedBefore);
+        if (request.isAsyncStarted()) {
+            request.getAsyncContext().addListener(new AsyncListener() {
+                @Override
+                public void onComplete(AsyncEvent event) {
+                    meshMetrics.recordPayload(countingRequest.count, countingResponse.count);
+                }
+
+                @Override public void onTimeout(AsyncEvent event) {}
+                @Override public void onError(AsyncEvent event) {}
+                @Override public void onStartAsync(AsyncEvent event) {}
+            });
+            return;
+        }
+
+        countingResponse.flushBuffer();
+        Object encodeStart = request.getAttribute(ENCODE_START);
+        if (encodeStart instanceof Long start) meshMetrics.recordStage("encode", System.nanoTime() - start);
+        meshMetrics.recordPayload(countingRequest.count, countingResponse.count);
+    }
+
+    private static final class CountingRequest extends HttpServletRequestWrapper {
+        long count;
+        private ServletInputStream stream;
+
+        CountingRequest(HttpServletRequest request) {
+            super(request);
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (stream == null) {
+                ServletInputStream delegate = super.getInputStream();
+                stream = new ServletInputStream() {
+                    @Override
+                    public int read() throws IOException {
+                        int b = delegate.read();
+                        if (b >= 0) count++;
+                        return b;
+                    }
+
+                    @Override
+                    public int read(byte[] buffer, int offset, int length) throws IOException {
+                        int n = delegate.read(buffer, offset, length);
+                        if (n > 0) count += n;
+                        return n;
+                    }
+
+                    @Override public boolean isFinished() { return delegate.isFinished(); }
+                    @Override public boolean isReady() { return delegate.isReady(); }
+                    @Override public void setReadListener(ReadListener listener) { delegate.setReadListener(listener); }
+                };
+            }
+            return stream;
+        }
+    }
+
+    private static final class CountingResponse extends HttpServletResponseWrapper {
+        long count;
+        private ServletOutputStream stream;
+
+        CountingResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (stream == null) {
+                ServletOutputStream delegate = super.getOutputStream();
+                stream = new ServletOutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        delegate.write(b);
+                        count++;
+                    }
+
+                    @Override
+                    public void write(byte[] buffer, int offset, int length) throws IOException {
+                        delegate.write(buffer, offset, length);
+                        count += length;
+                    }
+
+                    @Override public void flush() throws IOException { delegate.flush(); }
+                    @Override public void close() throws IOException { delegate.close(); }
+                    @Override public boolean isReady() { return delegate.isReady(); }
+                    @Override public void setWriteListener(WriteListener listener) { delegate.setWriteListener(listener); }
+                };
+            }
+            return stream;
+        }
+    }
+}
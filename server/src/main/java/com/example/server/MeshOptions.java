@@ -0,0 +1,32 @@
+package com.example.server;
+
+// Optional /upload query parameters that change how the mesh is produced.
+public class MeshOptions {
+    private Boolean parallel;
+    private Integer targetTriangles;
+    private Double maxError;
+    private Double smoothing;
+
+    public boolean isSimplified() { return targetTriangles != null || maxError != null; }
+    public boolean isSmoothed() { return smoothing != null && smoothing > 0; }
+
+    // Suffix for the cache key and ETag; parallel extraction yields the same mesh and is left out.
+    public String describe() {
+        StringBuilder options = new StringBuilder(MeshCache.DEFAULT_OPTIONS);
+        if (isSmoothed()) options.append("-blur").append(smoothing);
+        if (isSimplified()) options.append("-qem").append(getTargetTriangles()).append('e').append(getMaxError());
+        return options.toString();
+    }
+
+    public Boolean getParallel() { return parallel; }
+    public void setParallel(Boolean parallel) { this.parallel = parallel; }
+
+    public int getTargetTriangles() { return targetTriangles != null ? targetTriangles : 0; }
+    public void setTargetTriangles(Integer targetTriangles) { this.targetTriangles = targetTriangles; }
+
+    public double getMaxError() { return maxError != null ? maxError : 0; }
+    public void setMaxError(Double maxError) { this.maxError = maxError; }
+
+    public double getSmoothing() { return smoothing != null ? smoothing : 0; }
+    public void setSmoothing(Double smoothing) { this.smoothing = smoothing; }
+}
@@ -0,0 +1,499 @@
+package com.example.server;
+
+import java.util.Arrays;
+
+import org.springframework.stereotype.Component;
+
+// Quadric error metric edge collapse (Garland & Heckbert) on an indexed mesh. Everything is kept in primitive
+// arrays: per-vertex quadrics, a linked list of incident triangles per vertex and an indexed binary min-heap
+// holding each vertex's cheapest collapse, which is updated in place as its neighbourhood changes.
+@Component
+public class MeshSimplifier {
+
+    private static final double FLIP_THRESHOLD = 0.2;
+
+    // Collapses edges until at most targetTriangles remain or the cheapest collapse's quadric error exceeds
+    // maxError squared. The quadric error is the sum of squared distances from the merged vertex to the planes
+    // of every original triangle folded into it, so maxError is a world-unit distance only while a vertex
+    // stands for a single plane. A non-positive maxError means no error limit.
+    public MeshBuffer simplify(MeshBuffer input, int targetTriangles, double maxError) {
+        State state = new State(input);
+        double maxCost = maxError > 0 ? maxError * maxError : Double.POSITIVE_INFINITY;
+
+        state.seed();
+        while (state.liveTriangles > targetTriangles && state.heapSize > 0 && state.heapCost[0] <= maxCost) {
+            int a = state.heap[0];
+            if (!state.collapse(a)) state.choose(a, true);
+        }
+        return state.toMesh();
+    }
+
+    private static final class State {
+        final int vertexCount;
+        final double[] position;
+        final float[] normal;
+        final double[] quadric;
+        final boolean[] removed;
+        final int[] triangles;
+        final boolean[] dead;
+        int liveTriangles;
+
+        final int[] head;
+        final int[] refNext;
+
+        final int[] mark;
+        int generation;
+        int[] neighbours = new int[16];
+        final double[] sum = new double[10];
+        double candidateX, candidateY, candidateZ;
+
+        // Each live vertex's cheapest collapse: the neighbour it merges with, the merged position and the
+        // quadric error. Costs are also kept next to the heap slots so sifting compares contiguous values.
+        final int[] target;
+        final double[] targetPosition;
+        final double[] vertexCost;
+        final int[] heap;
+        final double[] heapCost;
+        final int[] heapIndex;
+        int heapSize;
+
+        State(MeshBuffer input) {
+            int[] weld = new int[input.getVertexCount()];
+            vertexCount = weld(input, weld);
+            position = new double[vertexCount * 3];
+            normal = input.hasNormals() ? new float[vertexCount * 3] : null;
+            float[] source = input.getPositions(), sourceNormals = input.getNormals();
+            for (int v = 0; v < input.getVertexCount(); v++) {
+                int w = weld[v];
+                position[w * 3] = source[v * 3];
+                position[w * 3 + 1] = source[v * 3 + 1];
+                position[w * 3 + 2] = source[v * 3 + 2];
+                if (normal != null) {
+                    normal[w * 3] += sourceNormals[v * 3];
+                    normal[w * 3 + 1] += sourceNormals[v * 3 + 1];
+                    normal[w * 3 + 2] += sourceNormals[v * 3 + 2];
+                }
+            }
+
+            int triangleCount = input.getTriangleCount();
+            triangles = new int[triangleCount * 3];
+            dead = new boolean[triangleCount];
+            int[] indices = input.getIndices();
+            int base = input.getVertexBase();
+            for (int i = 0; i < triangleCount * 3; i++) {
+                triangles[i] = weld[indices[i] - base];
+            }
+
+            quadric = new double[vertexCount * 10];
+            removed = new boolean[vertexCount];
+            mark = new int[vertexCount];
+            head = new int[vertexCount];
+            Arrays.fill(head, -1);
+            refNext = new int[triangleCount * 3];
+
+            for (int t = 0; t < triangleCount; t++) {
+                int a = triangles[t * 3], b = triangles[t * 3 + 1], c = triangles[t * 3 + 2];
+                if (a == b || b == c || a == c) {
+                    dead[t] = true;
+                    continue;
+                }
+                liveTriangles++;
+                addPlane(a, b, c);
+                for (int k = 0; k < 3; k++) {
+                    int v = triangles[t * 3 + k];
+                    refNext[t * 3 + k] = head[v];
+                    head[v] = t * 3 + k;
+                }
+            }
+
+            target = new int[vertexCount];
+            Arrays.fill(target, -1);
+            targetPosition = new double[vertexCount * 3];
+            vertexCost = new double[vertexCount];
+            Arrays.fill(vertexCost, Double.POSITIVE_INFINITY);
+            heap = new int[vertexCount];
+            heapCost = new double[vertexCount];
+            heapIndex = new int[vertexCount];
+            Arrays.fill(heapIndex, -1);
+        }
+
+        // Merges bit-identical positions (after folding -0 into 0) with an open-addressing table.
+        private static int weld(MeshBuffer input, int[] weld) {
+            float[] positions = input.getPositions();
+            int n = input.getVertexCount();
+            int capacity = Integer.highestOneBit(Math.max(2, n) * 2) << 1;
+            int[] table = new int[capacity];
+            Arrays.fill(table, -1);
+            int[] first = new int[n];
+            int unique = 0;
+            for (int v = 0; v < n; v++) {
+                float x = positions[v * 3] + 0f, y = positions[v * 3 + 1] + 0f, z = positions[v * 3 + 2] + 0f;
+                int h = Float.floatToIntBits(x) * 73856093 ^ Float.floatToIntBits(y) * 19349663 ^ Float.floatToIntBits(z) * 83492791;
+                int slot = (h ^ h >>> 16) & (capacity - 1);
+                while (true) {
+                    int other = table[slot];
+                    if (other < 0) {
+                        table[slot] = v;
+                        first[unique] = v;
+                        weld[v] = unique++;
+                        break;
+                    }
+                    if (positions[other * 3] + 0f == x && positions[other * 3 + 1] + 0f == y && positions[other * 3 + 2] + 0f == z) {
+                        weld[v] = weld[other];
+                        break;
+                    }
+                    slot = (slot + 1) & (capacity - 1);
+                }
+            }
+            return unique;
+        }
+
+        private void addPlane(int a, int b, int c) {
+            double ux = position[b * 3] - position[a * 3], uy = position[b * 3 + 1] - position[a * 3 + 1], uz = position[b * 3 + 2] - position[a * 3 + 2];
+            double vx = position[c * 3] - position[a * 3], vy = position[c * 3 + 1] - position[a * 3 + 1], vz = position[c * 3 + 2] - position[a * 3 + 2];
+            double nx = uy * vz - uz * vy, ny = uz * vx - ux * vz, nz = ux * vy - uy * vx;
+            double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+            if (length == 0) return;
+            nx /= length;
+            ny /= length;
+            nz /= length;
+            double d = -(nx * position[a * 3] + ny * position[a * 3 + 1] + nz * position[a * 3 + 2]);
+            addPlane(a, nx, ny, nz, d);
+            addPlane(b, nx, ny, nz, d);
+            addPlane(c, nx, ny, nz, d);
+        }
+
+        private void addPlane(int v, double nx, double ny, double nz, double d) {
+            int q = v * 10;
+            quadric[q] += nx * nx;
+            quadric[q + 1] += nx * ny;
+            quadric[q + 2] += nx * nz;
+            quadric[q + 3] += nx * d;
+            quadric[q + 4] += ny * ny;
+            quadric[q + 5] += ny * nz;
+            quadric[q + 6] += ny * d;
+            quadric[q + 7] += nz * nz;
+            quadric[q + 8] += nz * d;
+            quadric[q + 9] += d * d;
+        }
+
+        // Evaluates every edge once, offering its cost to both endpoints, then files each vertex in the heap.
+        void seed() {
+            for (int v = 0; v < vertexCount; v++) {
+                int count = gather(v);
+                for (int i = 0; i < count; i++) {
+                    int w = neighbours[i];
+                    if (w < v) continue;
+                    double cost = evaluate(v, w);
+                    offer(v, w, cost);
+                    offer(w, v, cost);
+                }
+            }
+            for (int v = 0; v < vertexCount; v++) {
+                if (target[v] >= 0) place(heapSize++, v, vertexCost[v]);
+            }
+        }
+
+        private void offer(int v, int w, double cost) {
+            if (cost >= vertexCost[v]) return;
+            vertexCost[v] = cost;
+            target[v] = w;
+            targetPosition[v * 3] = candidateX;
+            targetPosition[v * 3 + 1] = candidateY;
+            targetPosition[v * 3 + 2] = candidateZ;
+        }
+
+        // Re-picks v's cheapest collapse from scratch. With `checked`, candidates that fail the manifold and
+        // flip tests are skipped, so a vertex whose best collapse was rejected falls back to the next one and
+        // leaves the heap when none is left (a later collapse next to it offers it a new edge).
+        void choose(int v, boolean checked) {
+            int count = gather(v);
+            target[v] = -1;
+            vertexCost[v] = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < count; i++) {
+                int w = neighbours[i];
+                double cost = evaluate(v, w);
+                if (cost >= vertexCost[v]) continue;
+                if (checked && !canCollapse(v, w, candidateX, candidateY, candidateZ)) continue;
+                offer(v, w, cost);
+            }
+            if (target[v] >= 0) update(v);
+            else remove(v);
+        }
+
+        // Collects v's distinct neighbours into `neighbours` and returns how many there are.
+        private int gather(int v) {
+            int visit = nextGeneration();
+            int count = 0;
+            for (int r = head[v]; r >= 0; r = refNext[r]) {
+                int t = r / 3;
+                if (dead[t]) continue;
+                for (int k = 0; k < 3; k++) {
+                    int w = triangles[t * 3 + k];
+                    if (w == v || mark[w] == visit) continue;
+                    mark[w] = visit;
+                    if (count == neighbours.length) neighbours = Arrays.copyOf(neighbours, count * 2);
+                    neighbours[count++] = w;
+                }
+            }
+            return count;
+        }
+
+        private int nextGeneration() {
+            if (++generation == Integer.MAX_VALUE) {
+                Arrays.fill(mark, 0);
+                generation = 1;
+            }
+            return generation;
+        }
+
+        private void update(int v) {
+            int i = heapIndex[v];
+            place(i >= 0 ? i : heapSize++, v, vertexCost[v]);
+        }
+
+        private void remove(int v) {
+            int i = heapIndex[v];
+            if (i < 0) return;
+            heapIndex[v] = -1;
+            int last = heap[--heapSize];
+            if (i < heapSize) place(i, last, heapCost[heapSize]);
+        }
+
+        // Moves v into slot i and sifts it up or down to where its cost belongs.
+        private void place(int i, int v, double cost) {
+            while (i > 0) {
+                int parent = (i - 1) >> 1;
+                if (heapCost[parent] <= cost) break;
+                move(parent, i);
+                i = parent;
+            }
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= heapSize) break;
+                if (child + 1 < heapSize && heapCost[child + 1] < heapCost[child]) child++;
+                if (heapCost[child] >= cost) break;
+                move(child, i);
+                i = child;
+            }
+            heap[i] = v;
+            heapCost[i] = cost;
+            heapIndex[v] = i;
+        }
+
+        private void move(int from, int to) {
+            heap[to] = heap[from];
+            heapCost[to] = heapCost[from];
+            heapIndex[heap[to]] = to;
+        }
+
+        // Optimal position minimises v^T (Qa + Qb) v; falls back to the endpoints or midpoint when the
+        // quadric is singular (flat or straight regions).
+        private double evaluate(int a, int b) {
+            double[] q = sum;
+            for (int k = 0; k < 10; k++) q[k] = quadric[a * 10 + k] + quadric[b * 10 + k];
+
+            double det = q[0] * (q[4] * q[7] - q[5] * q[5]) - q[1] * (q[1] * q[7] - q[5] * q[2]) + q[2] * (q[1] * q[5] - q[4] * q[2]);
+            double bestX, bestY, bestZ, bestCost;
+            if (Math.abs(det) > 1e-12) {
+                double rx = -q[3], ry = -q[6], rz = -q[8];
+                bestX = (rx * (q[4] * q[7] - q[5] * q[5]) - q[1] * (ry * q[7] - q[5] * rz) + q[2] * (ry * q[5] - q[4] * rz)) / det;
+                bestY = (q[0] * (ry * q[7] - rz * q[5]) - rx * (q[1] * q[7] - q[5] * q[2]) + q[2] * (q[1] * rz - ry * q[2])) / det;
+                bestZ = (q[0] * (q[4] * rz - q[5] * ry) - q[1] * (q[1] * rz - ry * q[2]) + rx * (q[1] * q[5] - q[4] * q[2])) / det;
+                bestCost = error(q, bestX, bestY, bestZ);
+            } else {
+                bestX = bestY = bestZ = 0;
+                bestCost = Double.POSITIVE_INFINITY;
+            }
+
+            for (int option = 0; option < 3; option++) {
+                double x, y, z;
+                if (option == 2) {
+                    x = (position[a * 3] + position[b * 3]) / 2;
+                    y = (position[a * 3 + 1] + position[b * 3 + 1]) / 2;
+                    z = (position[a * 3 + 2] + position[b * 3 + 2]) / 2;
+                } else {
+                    int v = option == 0 ? a : b;
+                    x = position[v * 3];
+                    y = position[v * 3 + 1];
+                    z = position[v * 3 + 2];
+                }
+                double cost = error(q, x, y, z);
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    bestX = x;
+                    bestY = y;
+                    bestZ = z;
+                }
+            }
+
+            candidateX = bestX;
+            candidateY = bestY;
+            candidateZ = bestZ;
+            return Math.max(0, bestCost);
+        }
+
+        private static double error(double[] q, double x, double y, double z) {
+            return q[0] * x * x + 2 * q[1] * x * y + 2 * q[2] * x * z + 2 * q[3] * x
+                 + q[4] * y * y + 2 * q[5] * y * z + 2 * q[6] * y
+                 + q[7] * z * z + 2 * q[8] * z + q[9];
+        }
+
+        // Merges a's chosen neighbour into it, or returns false when the collapse would break the surface.
+        boolean collapse(int a) {
+            int b = target[a];
+            compact(a);
+            compact(b);
+            double x = targetPosition[a * 3], y = targetPosition[a * 3 + 1], z = targetPosition[a * 3 + 2];
+            if (!canCollapse(a, b, x, y, z)) return false;
+
+            for (int r = head[b]; r >= 0; r = refNext[r]) {
+                int t = r / 3;
+                if (dead[t]) continue;
+                boolean sharesEdge = false;
+                for (int k = 0; k < 3; k++) {
+                    if (triangles[t * 3 + k] == a) sharesEdge = true;
+                }
+                if (sharesEdge) {
+                    dead[t] = true;
+                    liveTriangles--;
+                    continue;
+                }
+                for (int k = 0; k < 3; k++) {
+                    if (triangles[t * 3 + k] == b) triangles[t * 3 + k] = a;
+                }
+            }
+
+            compact(a);
+            int tail = compact(b);
+            if (tail >= 0) {
+                refNext[tail] = head[a];
+                head[a] = head[b];
+            }
+            head[b] = -1;
+
+            for (int k = 0; k < 10; k++) quadric[a * 10 + k] += quadric[b * 10 + k];
+            position[a * 3] = x;
+            position[a * 3 + 1] = y;
+            position[a * 3 + 2] = z;
+            if (normal != null) {
+                for (int k = 0; k < 3; k++) normal[a * 3 + k] += normal[b * 3 + k];
+            }
+            removed[b] = true;
+            remove(b);
+            requeue(a, b);
+            return true;
+        }
+
+        // Only edges touching the merged vertex changed cost. Each is evaluated once for both endpoints; a
+        // neighbour whose best collapse pointed at a or b has to be re-picked since that cost may have grown.
+        private void requeue(int a, int b) {
+            int[] ring = Arrays.copyOf(neighbours, gather(a));
+            target[a] = -1;
+            vertexCost[a] = Double.POSITIVE_INFINITY;
+            for (int w : ring) {
+                double cost = evaluate(a, w);
+                offer(a, w, cost);
+                if (heapIndex[w] >= 0 && (target[w] == a || target[w] == b)) {
+                    choose(w, false);
+                } else if (heapIndex[w] < 0 || cost < vertexCost[w]) {
+                    offer(w, a, cost);
+                    update(w);
+                }
+            }
+            if (target[a] >= 0) update(a);
+            else remove(a);
+        }
+
+        // Unlinks references to dead triangles from v's list and returns its last live reference, or -1.
+        // Both endpoints are compacted on every collapse, so the lists that collapses scan hold only the
+        // vertex's current triangles instead of everything ever merged into it.
+        private int compact(int v) {
+            int previous = -1;
+            for (int r = head[v]; r >= 0; r = refNext[r]) {
+                if (!dead[r / 3]) previous = r;
+                else if (previous < 0) head[v] = refNext[r];
+                else refNext[previous] = refNext[r];
+            }
+            return previous;
+        }
+
+        private boolean canCollapse(int a, int b, double x, double y, double z) {
+            return linkConditionHolds(a, b) && !flips(a, b, x, y, z) && !flips(b, a, x, y, z);
+        }
+
+        // An interior edge may only be collapsed when its endpoints share exactly two neighbours;
+        // otherwise the collapse would pinch the surface into a non-manifold configuration.
+        private boolean linkConditionHolds(int a, int b) {
+            int neighbour = nextGeneration();
+            for (int r = head[a]; r >= 0; r = refNext[r]) {
+                int t = r / 3;
+                if (dead[t]) continue;
+                for (int k = 0; k < 3; k++) mark[triangles[t * 3 + k]] = neighbour;
+            }
+            int shared = 0;
+            int sharedGeneration = nextGeneration();
+            for (int r = head[b]; r >= 0; r = refNext[r]) {
+                int t = r / 3;
+                if (dead[t]) continue;
+                for (int k = 0; k < 3; k++) {
+                    int w = triangles[t * 3 + k];
+                    if (w == a || w == b) continue;
+                    if (mark[w] == neighbour) {
+                        mark[w] = sharedGeneration;
+                        shared++;
+                    }
+                }
+            }
+            return shared <= 2;
+        }
+
+        // Rejects collapses that would turn a triangle around `moving` (not shared with `other`) over.
+        private boolean flips(int moving, int other, double x, double y, double z) {
+            for (int r = head[moving]; r >= 0; r = refNext[r]) {
+                int t = r / 3;
+                if (dead[t]) continue;
+                int corner = -1;
+                boolean shared = false;
+                for (int k = 0; k < 3; k++) {
+                    int w = triangles[t * 3 + k];
+                    if (w == other) shared = true;
+                    if (w == moving) corner = k;
+                }
+                if (shared) continue;
+
+                int p = triangles[t * 3 + (corner + 1) % 3] * 3, q = triangles[t * 3 + (corner + 2) % 3] * 3;
+                double ex = position[q] - position[p], ey = position[q + 1] - position[p + 1], ez = position[q + 2] - position[p + 2];
+                double bx = position[moving * 3] - position[p], by = position[moving * 3 + 1] - position[p + 1], bz = position[moving * 3 + 2] - position[p + 2];
+                double ax = x - position[p], ay = y - position[p + 1], az = z - position[p + 2];
+                double n0x = ey * bz - ez * by, n0y = ez * bx - ex * bz, n0z = ex * by - ey * bx;
+                double n1x = ey * az - ez * ay, n1y = ez * ax - ex * az, n1z = ex * ay - ey * ax;
+                double lengths = Math.sqrt((n0x * n0x + n0y * n0y + n0z * n0z) * (n1x * n1x + n1y * n1y + n1z * n1z));
+                if (lengths == 0 || (n0x * n1x + n0y * n1y + n0z * n1z) / lengths < FLIP_THRESHOLD) return true;
+            }
+            return false;
+        }
+
+        MeshBuffer toMesh() {
+            int[] remap = new int[vertexCount];
+            Arrays.fill(remap, -1);
+            MeshBuffer mesh = new MeshBuffer(Math.max(1, liveTriangles / 2), Math.max(1, liveTriangles), normal != null);
+            for (int t = 0; t < dead.length; t++) {
+                if (dead[t]) continue;
+                for (int k = 0; k < 3; k++) {
+                    int v = triangles[t * 3 + k];
+                    if (remap[v] < 0) {
+                        remap[v] = mesh.addVertex((float) position[v * 3], (float) position[v * 3 + 1], (float) position[v * 3 + 2]);
+                        if (normal != null) {
+                            float nx = normal[v * 3], ny = normal[v * 3 + 1], nz = normal[v * 3 + 2];
+                            float length = (float) Math.sqrt(nx * nx + ny * ny + nz * nz);
+                            if (length > 0) mesh.setNormal(remap[v], nx / length, ny / length, nz / length);
+                        }
+                    }
+                }
+                mesh.addTriangle(remap[triangles[t * 3]], remap[triangles[t * 3 + 1]], remap[triangles[t * 3 + 2]]);
+            }
+            return mesh;
+        }
+    }
+}
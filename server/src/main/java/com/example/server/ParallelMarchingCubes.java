@@ -0,0 +1,127 @@
+package com.example.server;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+@Component
+public class ParallelMarchingCubes {
+
+    private final MarchingCubes marchingCubes;
+    private final ForkJoinPool pool;
+    private final boolean ownsPool;
+    private final int minSlabDepth;
+
+    public ParallelMarchingCubes(MarchingCubes marchingCubes,
+                                 @Value("${mesh.parallel.threads:0}") int threads,
+                                 @Value("${mesh.parallel.min-slab-depth:8}") int minSlabDepth) {
+        this.marchingCubes = marchingCubes;
+        this.ownsPool = threads > 0;
+        this.pool = ownsPool ? new ForkJoinPool(threads) : ForkJoinPool.commonPool();
+        this.minSlabDepth = Math.max(1, minSlabDepth);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (ownsPool) pool.shutdown();
+    }
+
+    // Splits the cell layers into z-slabs, marches them concurrently into slab-local buffers and stitches
+    // them in order. Seam vertices are taken from the slab below, so the result is identical to
+    // MarchingCubes.extract.
+    public MeshBuffer extract(VoxelGrid grid) {
+        return extract(grid, false);
+    }
+
+    public MeshBuffer extract(VoxelGrid grid, boolean normals) {
+        int layers = grid.getDepth() - 1;
+        int slabCount = Math.min(pool.getParallelism() * 4, layers / minSlabDepth);
+        if (slabCount < 2 || grid.getWidth() < 2 || grid.getHeight() < 2) return marchingCubes.extract(grid, normals);
+
+        List<SlabTask> tasks = new ArrayList<>(slabCount);
+        for (int s = 0; s < slabCount; s++) {
+            tasks.add(new SlabTask(grid, layers * s / slabCount, layers * (s + 1) / slabCount, normals));
+        }
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        });
+
+        int vertexCount = 0, triangleCount = 0;
+        for (SlabTask task : tasks) {
+            vertexCount += task.mesh.getVertexCount();
+            triangleCount += task.mesh.getTriangleCount();
+        }
+        MeshBuffer merged = new MeshBuffer(vertexCount, triangleCount, normals);
+
+        int[] previousTopX = null, previousTopY = null;
+        for (SlabTask task : tasks) {
+            MeshBuffer slab = task.mesh;
+            merged.addActiveCells(slab.getActiveCells());
+            MarchingCubes.SlabSeams seams = task.seams;
+            int[] remap = new int[slab.getVertexCount()];
+            Arrays.fill(remap, -1);
+
+            if (previousTopX != null) {
+                for (int i = 0; i < previousTopX.length; i++) {
+                    if (seams.bottomX[i] >= 0) remap[seams.bottomX[i]] = previousTopX[i];
+                    if (seams.bottomY[i] >= 0) remap[seams.bottomY[i]] = previousTopY[i];
+                }
+            }
+
+            float[] positions = slab.getPositions(), slabNormals = slab.getNormals();
+            for (int v = 0; v < remap.length; v++) {
+                if (remap[v] >= 0) continue;
+                remap[v] = merged.addVertex(positions[v * 3], positions[v * 3 + 1], positions[v * 3 + 2]);
+                if (normals) merged.setNormal(remap[v], slabNormals[v * 3], slabNormals[v * 3 + 1], slabNormals[v * 3 + 2]);
+            }
+
+            int[] indices = slab.getIndices();
+            for (int i = 0; i < slab.getIndexCount(); i += 3) {
+                merged.addTriangle(remap[indices[i]], remap[indices[i + 1]], remap[indices[i + 2]]);
+            }
+
+            previousTopX = rebase(seams.topX, remap);
+            previousTopY = rebase(seams.topY, remap);
+        }
+        return merged;
+    }
+
+    private static int[] rebase(int[] plane, int[] remap) {
+        int[] global = new int[plane.length];
+        for (int i = 0; i < plane.length; i++) {
+            global[i] = plane[i] >= 0 ? remap[plane[i]] : -1;
+        }
+        return global;
+    }
+
+    // Fork/join tasks are never serialized.
+    @SuppressWarnings("serial")
+    private class SlabTask extends RecursiveAction {
+        private final VoxelGrid grid;
+        private final int zStart, zEnd;
+        private final MeshBuffer mesh;
+        private final MarchingCubes.SlabSeams seams = new MarchingCubes.SlabSeams();
+
+        SlabTask(VoxelGrid grid, int zStart, int zEnd, boolean normals) {
+            this.grid = grid;
+            this.zStart = zStart;
+            this.zEnd = zEnd;
+            this.mesh = new MeshBuffer(1024, 2048, normals);
+        }
+
+        @Override
+        protected void compute() {
+            marchingCubes.extractSlab(grid, zStart, zEnd, mesh, seams, null);
+        }
+    }
+}
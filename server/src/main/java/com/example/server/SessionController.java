@@ -0,0 +1,86 @@
+package com.example.server;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+@RestController
+public class SessionController {
+
+    @Autowired
+    private VoxelSessionStore sessionStore;
+
+    @Autowired
+    private MarchingCubes marchingCubes;
+
+    @Autowired
+    private VoxelWireFormat.Limits wireFormatLimits;
+
+    @PostMapping(value = "/sessions", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public SessionUpdate createSession(@RequestBody List<VoxelCoordinates> coordinates) {
+        VoxelGrid grid;
+        try {
+            grid = VoxelGrid.fromCellCenters(coordinates, 0, wireFormatLimits.getMaxHeapCells());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+        return create(grid);
+    }
+
+    @PostMapping(value = "/sessions", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public SessionUpdate createSessionBinary(@RequestBody VoxelGrid grid) {
+        return create(grid);
+    }
+
+    @PostMapping("/sessions/{id}/edits")
+    public SessionUpdate editSession(@PathVariable String id, @RequestBody SessionEdit edit) {
+        VoxelSession session = find(id);
+        try {
+            List<ChunkMesh> changed = session.edit(edit.getAdd(), edit.getRemove(), marchingCubes);
+            return new SessionUpdate(session, session.getVersion(), changed);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    @GetMapping("/sessions/{id}/chunks")
+    public SessionUpdate getChunks(@PathVariable String id, @RequestParam(defaultValue = "0") long since) {
+        VoxelSession session = find(id);
+        return new SessionUpdate(session, session.getVersion(), session.meshesSince(since));
+    }
+
+    @DeleteMapping("/sessions/{id}")
+    public ResponseEntity<Void> deleteSession(@PathVariable String id) {
+        if (!sessionStore.remove(id)) throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown session " + id);
+        return ResponseEntity.noContent().build();
+    }
+
+    private SessionUpdate create(VoxelGrid grid) {
+        VoxelSession session;
+        try {
+            session = sessionStore.create(grid, marchingCubes);
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, e.getMessage(), e);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+        return new SessionUpdate(session, session.getVersion(), session.meshesSince(0));
+    }
+
+    private VoxelSession find(String id) {
+        VoxelSession session = sessionStore.get(id);
+        if (session == null) throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown session " + id);
+        return session;
+    }
+}
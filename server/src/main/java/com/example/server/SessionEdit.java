@@ -0,0 +1,19 @@
+package com.example.server;
+
+public class SessionEdit {
+    private int[] add;
+    private int[] remove;
+
+    public SessionEdit() {}
+
+    public SessionEdit(int[] add, int[] remove) {
+        this.add = add;
+        this.remove = remove;
+    }
+
+    public int[] getAdd() { return add; }
+    public void setAdd(int[] add) { this.add = add; }
+
+    public int[] getRemove() { return remove; }
+    public void setRemove(int[] remove) { this.remove = remove; }
+}
@@ -0,0 +1,30 @@
+package com.example.server;
+
+import java.util.List;
+
+public class SessionUpdate {
+    private final String id;
+    private final long version;
+    private final double originX, originY, originZ;
+    private final double cellSize;
+    private final List<ChunkMesh> chunks;
+
+    public SessionUpdate(VoxelSession session, long version, List<ChunkMesh> chunks) {
+        this.id = session.getId();
+        this.version = version;
+        this.originX = session.getOriginX();
+        this.originY = session.getOriginY();
+        this.originZ = session.getOriginZ();
+        this.cellSize = session.getCellSize();
+        this.chunks = chunks;
+    }
+
+    public String getId() { return id; }
+    public long getVersion() { return version; }
+    public double getOriginX() { return originX; }
+    public double getOriginY() { return originY; }
+    public double getOriginZ() { return originZ; }
+    public double getCellSize() { return cellSize; }
+    public int getChunkSize() { return VoxelSession.CHUNK_SIZE; }
+    public List<ChunkMesh> getChunks() { return chunks; }
+}
@@ -1,21 +1,255 @@
 package com.example.server;
 
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.function.Function;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import jakarta.servlet.http.HttpServletRequest;
 
 @RestController
 public class VoxelController {
 
+    private static final String MESH_OPTIONS = MeshCache.DEFAULT_OPTIONS;
+    private static final int MAX_LEVELS = 8;
+    private static final double MAX_SMOOTHING = 4;
+
     @Autowired
     private MarchingCubes marchingCubes;
 
-    @PostMapping("/upload")
-    public List<VoxelCoordinates> uploadVoxel(@RequestBody List<VoxelCoordinates> coordinates) {
-        List<VoxelCoordinates> meshData = marchingCubes.generateMesh(coordinates);
-        return meshData;
+    @Autowired
+    private ParallelMarchingCubes parallelMarchingCubes;
+
+    @Autowired
+    private MeshCache meshCache;
+
+    @Autowired
+    private MeshSimplifier meshSimplifier;
+
+    @Autowired
+    private MeshMetrics meshMetrics;
+
+    @Autowired
+    private MeshBatchProcessor meshBatchProcessor;
+
+    @Autowired
+    private VoxelWireFormat.Limits wireFormatLimits;
+
+    @Value("${mesh.parallel.enabled:false}")
+    private boolean parallelByDefault;
+
+    @Value("${mesh.stream.chunk-vertices:65536}")
+    private int streamChunkVertices;
+
+    @PostMapping(value = "/upload", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<VoxelCoordinates>> uploadVoxel(@RequestBody List<VoxelCoordinates> coordinates, MeshOptions options,
+                                                              @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // The triangle list has no room for normals, so smoothed meshes are only offered in binary forms.
+        if (options.isSmoothed())
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "smoothing requires an application/octet-stream or /upload/glb request");
+        return respond(buildGrid(coordinates), options, "-json", ifNoneMatch, MeshBuffer::toTriangleList);
+    }
+
+    @PostMapping(value = "/upload", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE, produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<MeshBuffer> uploadVoxelBinary(@RequestBody VoxelGrid grid, MeshOptions options,
+                                                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return respond(grid, options, ifNoneMatch, Function.identity());
+    }
+
+    // Download-ready binary glTF of the same mesh; smoothing adds normals, quantize stores positions and
+    // normals in 16 and 8 bits (KHR_mesh_quantization).
+    @PostMapping(value = "/upload/glb", consumes = MediaType.APPLICATION_JSON_VALUE, produces = GlbEncoder.MEDIA_TYPE)
+    public ResponseEntity<GlbModel> uploadVoxelGlb(@RequestBody List<VoxelCoordinates> coordinates, MeshOptions options,
+                                                   @RequestParam(defaultValue = "false") boolean quantize,
+                                                   @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return respond(buildGrid(coordinates), options, glbVariant(quantize), ifNoneMatch, mesh -> new GlbModel(mesh, quantize));
+    }
+
+    @PostMapping(value = "/upload/glb", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE, produces = GlbEncoder.MEDIA_TYPE)
+    public ResponseEntity<GlbModel> uploadVoxelBinaryGlb(@RequestBody VoxelGrid grid, MeshOptions options,
+                                                         @RequestParam(defaultValue = "false") boolean quantize,
+                                                         @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return respond(grid, options, glbVariant(quantize), ifNoneMatch, mesh -> new GlbModel(mesh, quantize));
+    }
+
+    private static String glbVariant(boolean quantize) {
+        return quantize ? "-glbq" : "-glb";
+    }
+
+    // Meshes are cached by grid content, and the cache key doubles as a strong ETag so clients that
+    // already hold the result skip both extraction and transfer.
+    private <T> ResponseEntity<T> respond(VoxelGrid grid, MeshOptions options, String ifNoneMatch, Function<MeshBuffer, T> body) {
+        return respond(grid, options, "", ifNoneMatch, body);
+    }
+
+    // The variant suffix keeps the ETags of other encodings of the same cached mesh apart.
+    private <T> ResponseEntity<T> respond(VoxelGrid grid, MeshOptions options, String variant, String ifNoneMatch, Function<MeshBuffer, T> body) {
+        if (options.getTargetTriangles() < 0) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "targetTriangles must not be negative");
+        if (!(options.getMaxError() >= 0)) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "maxError must not be negative");
+        if (!(options.getSmoothing() >= 0 && options.getSmoothing() <= MAX_SMOOTHING))
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "smoothing must be between 0 and " + MAX_SMOOTHING);
+
+        String key = MeshCache.key(grid, options.describe());
+        String etag = "\"" + key + variant + "\"";
+        if (matches(ifNoneMatch, etag, key)) return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+
+        MeshBuffer mesh = meshCache.computeIfAbsent(key, () -> {
+            meshMetrics.recordGrid(grid);
+            MeshBuffer extracted = options.isSmoothed()
+                ? extract(meshMetrics.time("smooth", () -> grid.blur(options.getSmoothing())), options.getParallel(), true)
+                : extract(grid, options.getParallel(), false);
+            meshMetrics.recordMesh(extracted);
+            return options.isSimplified()
+                ? meshMetrics.time("simplify", () -> meshSimplifier.simplify(extracted, options.getTargetTriangles(), options.getMaxError()))
+                : extracted;
+        });
+        return ResponseEntity.ok().eTag(etag).body(body.apply(mesh));
+    }
+
+    // "*" only matches a mesh that currently exists, i.e. one already in the cache.
+    private boolean matches(String ifNoneMatch, String etag, String key) {
+        if (ifNoneMatch == null) return false;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) tag = tag.substring(2);
+            if (tag.equals(etag) || (tag.equals("*") && meshCache.contains(key))) return true;
+        }
+        return false;
+    }
+
+    @PostMapping(value = "/upload/stream", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public StreamingResponseBody uploadVoxelStream(@RequestBody List<VoxelCoordinates> coordinates) {
+        VoxelGrid grid = buildGrid(coordinates);
+        return out -> streamMesh(grid, out);
+    }
+
+    // Run-length bodies beyond mesh.volume.heap-cell-limit are decoded into a memory-mapped volume and
+    // streamed through the kernel a window of layers at a time.
+    @PostMapping(value = "/upload/stream", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE, produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public StreamingResponseBody uploadVoxelBinaryStream(@RequestBody VoxelVolume volume) {
+        return out -> {
+            try {
+                streamMesh(volume, out);
+            } finally {
+                if (volume instanceof Closeable closeable) closeable.close();
+            }
+        };
+    }
+
+    // Many volumes in one request (see VoxelWireFormat, Batch), meshed concurrently and returned tagged by
+    // id as each one finishes. The body is consumed while the response streams.
+    @PostMapping(value = "/upload/batch", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE, produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public StreamingResponseBody uploadVoxelBatch(HttpServletRequest request) throws IOException {
+        InputStream in = new BufferedInputStream(request.getInputStream());
+        int count;
+        try {
+            count = VoxelWireFormat.readBatchCount(in);
+        } catch (IOException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        return out -> meshBatchProcessor.process(in, count, out);
+    }
+
+    @PostMapping(value = "/upload/lod", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public StreamingResponseBody uploadVoxelLevels(@RequestBody List<VoxelCoordinates> coordinates,
+                                                   @RequestParam(defaultValue = "3") int levels,
+                                                   @RequestParam(required = false) Boolean parallel) {
+        return streamLevels(buildGrid(coordinates), levels, parallel);
+    }
+
+    @PostMapping(value = "/upload/lod", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE, produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public StreamingResponseBody uploadVoxelBinaryLevels(@RequestBody VoxelGrid grid,
+                                                         @RequestParam(defaultValue = "3") int levels,
+                                                         @RequestParam(required = false) Boolean parallel) {
+        return streamLevels(grid, levels, parallel);
+    }
+
+    // The grid is built once and halved into a mip pyramid; levels are meshed and flushed coarsest first
+    // so the viewer can show a preview while the finer levels are still being extracted.
+    private StreamingResponseBody streamLevels(VoxelGrid grid, int levels, Boolean parallel) {
+        if (levels < 1 || levels > MAX_LEVELS)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "levels must be between 1 and " + MAX_LEVELS);
+        VoxelGrid[] pyramid = new VoxelGrid[levels];
+        pyramid[0] = grid;
+        for (int level = 1; level < levels; level++) pyramid[level] = pyramid[level - 1].downsample();
+
+        return out -> {
+            VoxelWireFormat.writeLevelCount(levels, out);
+            for (int level = levels - 1; level >= 0; level--) {
+                VoxelGrid levelGrid = pyramid[level];
+                MeshBuffer mesh = meshCache.computeIfAbsent(MeshCache.key(levelGrid, MESH_OPTIONS), () -> {
+                    meshMetrics.recordGrid(levelGrid);
+                    MeshBuffer extracted = extract(levelGrid, parallel, false);
+                    meshMetrics.recordMesh(extracted);
+                    return extracted;
+                });
+                VoxelWireFormat.writeLevel(level, levelGrid.getCellSize(), mesh, out);
+                out.flush();
+            }
+        };
+    }
+
+    // Streamed meshes are flushed chunk by chunk, so the extract timer here includes writing to the client.
+    private void streamMesh(VoxelVolume volume, OutputStream out) throws IOException {
+        meshMetrics.recordGrid(volume);
+        MeshBuffer mesh = new MeshBuffer();
+        long start = System.nanoTime();
+        long[] written = new long[1];
+        try {
+            marchingCubes.extract(volume, mesh, z -> {
+                if (mesh.getVertexCount() >= streamChunkVertices) {
+                    written[0] += mesh.getTriangleCount();
+                    writeChunk(mesh, out);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        meshMetrics.recordStage("extract", System.nanoTime() - start);
+        meshMetrics.recordMesh(mesh.getActiveCells(), written[0] + mesh.getTriangleCount());
+        if (mesh.getIndexCount() > 0) writeChunk(mesh, out);
+        VoxelWireFormat.writeEndOfStream(out);
+    }
+
+    private static void writeChunk(MeshBuffer mesh, OutputStream out) {
+        try {
+            VoxelWireFormat.writeMesh(mesh, out);
+            out.flush();
+            mesh.clear();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private VoxelGrid buildGrid(List<VoxelCoordinates> coordinates) {
+        meshMetrics.recordInput(coordinates.size());
+        try {
+            return meshMetrics.time("grid", () -> VoxelGrid.fromCellCenters(coordinates, 0, wireFormatLimits.getMaxHeapCells()));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    private MeshBuffer extract(VoxelGrid grid, Boolean parallel, boolean normals) {
+        boolean useParallel = parallel != null ? parallel : parallelByDefault;
+        return meshMetrics.time("extract", () -> useParallel ? parallelMarchingCubes.extract(grid, normals) : marchingCubes.extract(grid, normals));
     }
 }
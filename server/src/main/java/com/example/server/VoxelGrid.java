@@ -0,0 +1,286 @@
+package com.example.server;
+
+import java.util.List;
+
+public class VoxelGrid implements VoxelVolume {
+
+    public static final int PADDING = 1;
+    public static final byte EMPTY = 0;
+    public static final byte SOLID = (byte) 0xFF;
+
+    private static final long MAX_CELLS = Integer.MAX_VALUE - 8;
+    private static final double SNAP_EPSILON = 1e-6;
+
+    private final int width, height, depth;
+    private final byte[] data;
+    private final double originX, originY, originZ;
+    private final double cellSize;
+
+    public VoxelGrid(int width, int height, int depth, double originX, double originY, double originZ, double cellSize) {
+        this(width, height, depth, new byte[checkedSize(width, height, depth)], originX, originY, originZ, cellSize);
+    }
+
+    public VoxelGrid(int width, int height, int depth, byte[] data, double originX, double originY, double originZ, double cellSize) {
+        if (data.length != checkedSize(width, height, depth))
+            throw new IllegalArgumentException("Grid data does not match " + width + "x" + height + "x" + depth);
+        this.width = width;
+        this.height = height;
+        this.depth = depth;
+        this.data = data;
+        this.originX = originX;
+        this.originY = originY;
+        this.originZ = originZ;
+        this.cellSize = cellSize;
+    }
+
+    public static VoxelGrid fromCellCenters(List<VoxelCoordinates> centers) {
+        return fromCellCenters(centers, 0);
+    }
+
+    // Snaps world-space cell centers (as produced by the client's processGLBToVoxels) onto an integer
+    // lattice with one empty cell of padding on every side. A non-positive cellSize is inferred as the
+    // largest spacing that every offset from the bounding-box minimum is a multiple of, so sparse inputs
+    // keep their spacing.
+    public static VoxelGrid fromCellCenters(List<VoxelCoordinates> centers, double cellSize) {
+        return fromCellCenters(centers, cellSize, MAX_CELLS);
+    }
+
+    // As above, rejecting centers whose padded bounding box holds more than maxCells cells before the grid
+    // is allocated.
+    public static VoxelGrid fromCellCenters(List<VoxelCoordinates> centers, double cellSize, long maxCells) {
+        int n = centers.size();
+        if (n == 0) return new VoxelGrid(0, 0, 0, 0, 0, 0, 1);
+
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            VoxelCoordinates c = centers.get(i);
+            double x = c.getX(), y = c.getY(), z = c.getZ();
+            if (x < minX) minX = x;
+            if (y < minY) minY = y;
+            if (z < minZ) minZ = z;
+            if (x > maxX) maxX = x;
+            if (y > maxY) maxY = y;
+            if (z > maxZ) maxZ = z;
+        }
+
+        if (!(cellSize > 0)) {
+            double extent = Math.max(maxX - minX, Math.max(maxY - minY, maxZ - minZ));
+            double threshold = extent * SNAP_EPSILON;
+            double spacing = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < n; i++) {
+                VoxelCoordinates c = centers.get(i);
+                spacing = commonSpacing(spacing, c.getX() - minX, threshold);
+                spacing = commonSpacing(spacing, c.getY() - minY, threshold);
+                spacing = commonSpacing(spacing, c.getZ() - minZ, threshold);
+            }
+            cellSize = Double.isInfinite(spacing) ? 1 : spacing;
+        }
+
+        double cellsX = Math.rint((maxX - minX) / cellSize) + 1 + 2 * PADDING;
+        double cellsY = Math.rint((maxY - minY) / cellSize) + 1 + 2 * PADDING;
+        double cellsZ = Math.rint((maxZ - minZ) / cellSize) + 1 + 2 * PADDING;
+        if (!(cellsX * cellsY * cellsZ <= maxCells))
+            throw new IllegalArgumentException("Grid of " + (long) cellsX + "x" + (long) cellsY + "x" + (long) cellsZ + " cells exceeds the limit of " + maxCells);
+        int width = (int) cellsX, height = (int) cellsY, depth = (int) cellsZ;
+
+        VoxelGrid grid = new VoxelGrid(width, height, depth,
+            minX - PADDING * cellSize, minY - PADDING * cellSize, minZ - PADDING * cellSize, cellSize);
+
+        byte[] data = grid.data;
+        double inv = 1.0 / cellSize;
+        for (int i = 0; i < n; i++) {
+            VoxelCoordinates c = centers.get(i);
+            int x = (int) Math.round((c.getX() - minX) * inv) + PADDING;
+            int y = (int) Math.round((c.getY() - minY) * inv) + PADDING;
+            int z = (int) Math.round((c.getZ() - minZ) * inv) + PADDING;
+            data[x + width * (y + height * z)] = SOLID;
+        }
+        return grid;
+    }
+
+    // Folds one offset into the running spacing with Euclid's algorithm, treating anything within
+    // threshold of a multiple as exact. Offsets on the current lattice cost one division, so inference
+    // stays linear in the number of centers.
+    private static double commonSpacing(double spacing, double offset, double threshold) {
+        if (offset <= threshold) return spacing;
+        if (Double.isInfinite(spacing)) return offset;
+        double steps = Math.rint(offset / spacing);
+        if (steps >= 1 && Math.abs(offset - steps * spacing) <= threshold) return spacing;
+
+        double a = Math.max(spacing, offset), b = Math.min(spacing, offset);
+        while (true) {
+            double r = a % b;
+            if (r <= threshold || b - r <= threshold) return b;
+            a = b;
+            b = r;
+        }
+    }
+
+    // Builds a padded grid from packed integer lattice coordinates (x, y, z triplets). The origin is the
+    // world-space center of lattice cell 0,0,0.
+    public static VoxelGrid fromLattice(int[] coordinates, int count, double originX, double originY, double originZ, double cellSize) {
+        return fromLattice(coordinates, count, originX, originY, originZ, cellSize, MAX_CELLS);
+    }
+
+    // As above, rejecting coordinates whose padded bounding box holds more than maxCells cells before the
+    // grid is allocated.
+    public static VoxelGrid fromLattice(int[] coordinates, int count, double originX, double originY, double originZ, double cellSize, long maxCells) {
+        if (count == 0) return new VoxelGrid(0, 0, 0, originX, originY, originZ, cellSize);
+
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
+        for (int i = 0; i < count * 3; i += 3) {
+            int x = coordinates[i], y = coordinates[i + 1], z = coordinates[i + 2];
+            if (x < minX) minX = x;
+            if (y < minY) minY = y;
+            if (z < minZ) minZ = z;
+            if (x > maxX) maxX = x;
+            if (y > maxY) maxY = y;
+            if (z > maxZ) maxZ = z;
+        }
+
+        long width = (long) maxX - minX + 1 + 2 * PADDING;
+        long height = (long) maxY - minY + 1 + 2 * PADDING;
+        long depth = (long) maxZ - minZ + 1 + 2 * PADDING;
+        if (width > Integer.MAX_VALUE || height > Integer.MAX_VALUE || depth > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Lattice coordinates span too large a range");
+        if ((double) width * height * depth > maxCells)
+            throw new IllegalArgumentException("Grid of " + width + "x" + height + "x" + depth + " cells exceeds the limit of " + maxCells);
+
+        VoxelGrid grid = new VoxelGrid((int) width, (int) height, (int) depth,
+            originX + (minX - PADDING) * cellSize, originY + (minY - PADDING) * cellSize, originZ + (minZ - PADDING) * cellSize, cellSize);
+
+        byte[] data = grid.data;
+        int w = grid.width, h = grid.height;
+        for (int i = 0; i < count * 3; i += 3) {
+            int x = coordinates[i] - minX + PADDING;
+            int y = coordinates[i + 1] - minY + PADDING;
+            int z = coordinates[i + 2] - minZ + PADDING;
+            data[x + w * (y + h * z)] = SOLID;
+        }
+        return grid;
+    }
+
+    // Next level of a mip pyramid: every sample is the mean of a 2x2x2 block of this grid, so the cell size
+    // doubles and partially filled blocks become fractional densities that the extraction interpolates.
+    // Samples past the far edge count as empty and a fresh empty border is added, which keeps the coarse
+    // surface closed.
+    public VoxelGrid downsample() {
+        if (width == 0 || height == 0 || depth == 0) return new VoxelGrid(0, 0, 0, originX, originY, originZ, cellSize * 2);
+        int p = PADDING;
+        int w = (width + 1) / 2 + 2 * p, h = (height + 1) / 2 + 2 * p, d = (depth + 1) / 2 + 2 * p;
+        VoxelGrid coarse = new VoxelGrid(w, h, d,
+            originX + (0.5 - 2 * p) * cellSize, originY + (0.5 - 2 * p) * cellSize, originZ + (0.5 - 2 * p) * cellSize, cellSize * 2);
+
+        byte[] target = coarse.data;
+        for (int z = p; z < d - p; z++) {
+            for (int y = p; y < h - p; y++) {
+                int row = w * (y + h * z);
+                for (int x = p; x < w - p; x++) {
+                    int sum = 0;
+                    for (int k = 0; k < 8; k++) {
+                        int fx = 2 * (x - p) + (k & 1), fy = 2 * (y - p) + (k >> 1 & 1), fz = 2 * (z - p) + (k >> 2);
+                        if (fx < width && fy < height && fz < depth) sum += data[fx + width * (fy + height * fz)] & 0xFF;
+                    }
+                    target[row + x] = (byte) ((sum + 4) >> 3);
+                }
+            }
+        }
+        return coarse;
+    }
+
+    // Separable Gaussian blur of the densities (sigma in cells), turning the 0/1 occupancy into a smooth
+    // field whose 0.5 level interpolates between samples instead of snapping to edge midpoints. The grid
+    // grows by the kernel radius on every side so the blurred field still reaches zero at the border.
+    public VoxelGrid blur(double sigma) {
+        int radius = (int) Math.ceil(3 * sigma);
+        if (radius == 0 || width == 0 || height == 0 || depth == 0) return this;
+
+        float[] kernel = new float[2 * radius + 1];
+        float total = 0;
+        for (int i = -radius; i <= radius; i++) total += kernel[i + radius] = (float) Math.exp(-i * i / (2 * sigma * sigma));
+        for (int i = 0; i < kernel.length; i++) kernel[i] /= total;
+
+        int w = width + 2 * radius, h = height + 2 * radius, d = depth + 2 * radius;
+        VoxelGrid blurred = new VoxelGrid(w, h, d,
+            originX - radius * cellSize, originY - radius * cellSize, originZ - radius * cellSize, cellSize);
+        float[] field = new float[w * h * d];
+        for (int z = 0; z < depth; z++)
+            for (int y = 0; y < height; y++)
+                for (int x = 0; x < width; x++)
+                    field[x + radius + w * (y + radius + h * (z + radius))] = (data[x + width * (y + height * z)] & 0xFF) / 255f;
+
+        int plane = w * h;
+        float[] line = new float[Math.max(w, Math.max(h, d))], out = new float[line.length];
+        for (int z = 0; z < d; z++)
+            for (int y = 0; y < h; y++) convolve(field, w * (y + h * z), 1, w, kernel, line, out);
+        for (int z = 0; z < d; z++)
+            for (int x = 0; x < w; x++) convolve(field, x + plane * z, w, h, kernel, line, out);
+        for (int y = 0; y < h; y++)
+            for (int x = 0; x < w; x++) convolve(field, x + w * y, plane, d, kernel, line, out);
+
+        byte[] target = blurred.data;
+        for (int i = 0; i < field.length; i++) target[i] = (byte) Math.round(Math.min(1f, field[i]) * 255);
+        return blurred;
+    }
+
+    // Convolves one line of the field in place; samples past either end count as empty.
+    private static void convolve(float[] field, int start, int stride, int length, float[] kernel, float[] line, float[] out) {
+        boolean any = false;
+        for (int i = 0; i < length; i++) {
+            line[i] = field[start + i * stride];
+            any |= line[i] != 0;
+        }
+        if (!any) return;
+
+        int radius = kernel.length / 2;
+        for (int i = 0; i < length; i++) {
+            float sum = 0;
+            int from = Math.max(-radius, -i), to = Math.min(radius, length - 1 - i);
+            for (int k = from; k <= to; k++) sum += kernel[k + radius] * line[i + k];
+            out[i] = sum;
+        }
+        for (int i = 0; i < length; i++) field[start + i * stride] = out[i];
+    }
+
+    private static int checkedSize(int width, int height, int depth) {
+        if (width < 0 || height < 0 || depth < 0)
+            throw new IllegalArgumentException("Negative grid dimension");
+        long size = (long) width * height * depth;
+        if (size > MAX_CELLS)
+            throw new IllegalArgumentException("Grid of " + width + "x" + height + "x" + depth + " cells is too large");
+        return (int) size;
+    }
+
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+    public int getDepth() { return depth; }
+    public double getCellSize() { return cellSize; }
+    public double getOriginX() { return originX; }
+    public double getOriginY() { return originY; }
+    public double getOriginZ() { return originZ; }
+
+    public byte[] getData() { return data; }
+
+    public int index(int x, int y, int z) {
+        return x + width * (y + height * z);
+    }
+
+    public float density(int x, int y, int z) {
+        return (data[x + width * (y + height * z)] & 0xFF) / 255f;
+    }
+
+    public void set(int x, int y, int z, byte value) {
+        data[x + width * (y + height * z)] = value;
+    }
+
+    public void readLayers(int zStart, int zEnd, byte[] target) {
+        int plane = width * height;
+        System.arraycopy(data, zStart * plane, target, 0, (zEnd - zStart) * plane);
+    }
+
+    public double worldX(double x) { return originX + x * cellSize; }
+    public double worldY(double y) { return originY + y * cellSize; }
+    public double worldZ(double z) { return originZ + z * cellSize; }
+}
@@ -0,0 +1,202 @@
+package com.example.server;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Server-side occupancy volume split into CHUNK_SIZE^3 chunks on an unbounded integer lattice. Edits
+// mark the chunks whose marching cubes cells touch the edited lattice points, and only those chunks are
+// remeshed. Cells of chunk c span lattice points c*S .. c*S+S, so each chunk mesh also samples its +x/+y/+z
+// neighbours and chunk meshes can be shown side by side without seams. Each allocated chunk costs
+// CHUNK_SIZE^3 bytes, so a session holds at most maxChunks of them and an edit at most maxEditPoints points.
+public class VoxelSession {
+
+    public static final int CHUNK_SIZE = 32;
+
+    private static final int BITS = 21;
+    private static final long MASK = (1L << BITS) - 1;
+    private static final int BIAS = 1 << (BITS - 1);
+
+    private final String id;
+    private final double originX, originY, originZ;
+    private final double cellSize;
+    private final int maxChunks;
+    private final int maxEditPoints;
+    private final Map<Long, Chunk> chunks = new HashMap<>();
+    private final Map<Long, ChunkMesh> meshes = new HashMap<>();
+    private long version;
+    private volatile long lastAccess = System.currentTimeMillis();
+
+    private static class Chunk {
+        final byte[] data = new byte[CHUNK_SIZE * CHUNK_SIZE * CHUNK_SIZE];
+        int solid;
+    }
+
+    public VoxelSession(String id, double originX, double originY, double originZ, double cellSize) {
+        this(id, originX, originY, originZ, cellSize, Integer.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    public VoxelSession(String id, double originX, double originY, double originZ, double cellSize, int maxChunks, int maxEditPoints) {
+        this.id = id;
+        this.originX = originX;
+        this.originY = originY;
+        this.originZ = originZ;
+        this.cellSize = cellSize;
+        this.maxChunks = maxChunks;
+        this.maxEditPoints = maxEditPoints;
+    }
+
+    public static VoxelSession fromGrid(String id, VoxelGrid grid, MarchingCubes marchingCubes) {
+        return fromGrid(id, grid, marchingCubes, Integer.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    // Seeds the session with every solid cell of the grid; grid indices become lattice coordinates.
+    public static VoxelSession fromGrid(String id, VoxelGrid grid, MarchingCubes marchingCubes, int maxChunks, int maxEditPoints) {
+        VoxelSession session = new VoxelSession(id, grid.getOriginX(), grid.getOriginY(), grid.getOriginZ(), grid.getCellSize(),
+            maxChunks, maxEditPoints);
+        Set<Long> dirty = new LinkedHashSet<>();
+        byte[] data = grid.getData();
+        int width = grid.getWidth(), height = grid.getHeight();
+        for (int i = 0; i < data.length; i++) {
+            if (data[i] == VoxelGrid.EMPTY) continue;
+            int x = i % width, y = i / width % height, z = i / (width * height);
+            session.set(x, y, z, true, dirty);
+        }
+        session.remesh(dirty, marchingCubes);
+        return session;
+    }
+
+    // Applies packed x, y, z lattice triplets and returns the chunk meshes that changed. Every coordinate is
+    // checked before anything is applied, so a rejected edit leaves the session untouched.
+    public synchronized List<ChunkMesh> edit(int[] add, int[] remove, MarchingCubes marchingCubes) {
+        lastAccess = System.currentTimeMillis();
+        long points = (add != null ? add.length / 3 : 0) + (remove != null ? remove.length / 3 : 0);
+        if (points > maxEditPoints) throw new IllegalArgumentException("Edit of " + points + " points exceeds the limit of " + maxEditPoints);
+        checkRange(add);
+        checkRange(remove);
+        checkChunks(add);
+        Set<Long> dirty = new LinkedHashSet<>();
+        if (add != null) {
+            for (int i = 0; i + 2 < add.length; i += 3) set(add[i], add[i + 1], add[i + 2], true, dirty);
+        }
+        if (remove != null) {
+            for (int i = 0; i + 2 < remove.length; i += 3) set(remove[i], remove[i + 1], remove[i + 2], false, dirty);
+        }
+        return remesh(dirty, marchingCubes);
+    }
+
+    // Chunks that lost their last triangle are reported as empty meshes so incremental clients clear them;
+    // a full listing (sinceVersion 0) leaves those out.
+    public synchronized List<ChunkMesh> meshesSince(long sinceVersion) {
+        lastAccess = System.currentTimeMillis();
+        List<ChunkMesh> changed = new ArrayList<>();
+        for (ChunkMesh mesh : meshes.values()) {
+            if (mesh.getVersion() > sinceVersion && (sinceVersion > 0 || mesh.getIndices().length > 0)) changed.add(mesh);
+        }
+        return changed;
+    }
+
+    private static void checkRange(int[] coordinates) {
+        if (coordinates == null) return;
+        for (int i = 0; i + 2 < coordinates.length; i += 3) checkRange(coordinates[i], coordinates[i + 1], coordinates[i + 2]);
+    }
+
+    private static void checkRange(int x, int y, int z) {
+        int cx = Math.floorDiv(x, CHUNK_SIZE), cy = Math.floorDiv(y, CHUNK_SIZE), cz = Math.floorDiv(z, CHUNK_SIZE);
+        if (Math.max(Math.abs(cx), Math.max(Math.abs(cy), Math.abs(cz))) >= BIAS - 1)
+            throw new IllegalArgumentException("Lattice coordinate out of range: " + x + ", " + y + ", " + z);
+    }
+
+    // Added points may only open as many new chunks as the session has room for.
+    private void checkChunks(int[] add) {
+        if (add == null) return;
+        Set<Long> opened = new HashSet<>();
+        for (int i = 0; i + 2 < add.length; i += 3) {
+            long key = key(Math.floorDiv(add[i], CHUNK_SIZE), Math.floorDiv(add[i + 1], CHUNK_SIZE), Math.floorDiv(add[i + 2], CHUNK_SIZE));
+            if (!chunks.containsKey(key) && opened.add(key) && chunks.size() + opened.size() > maxChunks)
+                throw new IllegalArgumentException("Edit exceeds the limit of " + maxChunks + " chunks per session");
+        }
+    }
+
+    private void set(int x, int y, int z, boolean solid, Set<Long> dirty) {
+        checkRange(x, y, z);
+        int cx = Math.floorDiv(x, CHUNK_SIZE), cy = Math.floorDiv(y, CHUNK_SIZE), cz = Math.floorDiv(z, CHUNK_SIZE);
+        long key = key(cx, cy, cz);
+        Chunk chunk = chunks.get(key);
+        if (chunk == null) {
+            if (!solid) return;
+            if (chunks.size() >= maxChunks) throw new IllegalArgumentException("Session exceeds the limit of " + maxChunks + " chunks");
+            chunk = new Chunk();
+            chunks.put(key, chunk);
+        }
+
+        int i = Math.floorMod(x, CHUNK_SIZE) + CHUNK_SIZE * (Math.floorMod(y, CHUNK_SIZE) + CHUNK_SIZE * Math.floorMod(z, CHUNK_SIZE));
+        boolean wasSolid = chunk.data[i] != VoxelGrid.EMPTY;
+        if (wasSolid == solid) return;
+        chunk.data[i] = solid ? VoxelGrid.SOLID : VoxelGrid.EMPTY;
+        chunk.solid += solid ? 1 : -1;
+        if (chunk.solid == 0) chunks.remove(key);
+
+        // The point is a corner of the cells whose lower corner lies in [p - 1, p] on every axis.
+        int lx = Math.floorDiv(x - 1, CHUNK_SIZE), ly = Math.floorDiv(y - 1, CHUNK_SIZE), lz = Math.floorDiv(z - 1, CHUNK_SIZE);
+        for (int dz = lz; dz <= cz; dz++)
+            for (int dy = ly; dy <= cy; dy++)
+                for (int dx = lx; dx <= cx; dx++)
+                    dirty.add(key(dx, dy, dz));
+    }
+
+    private List<ChunkMesh> remesh(Set<Long> dirty, MarchingCubes marchingCubes) {
+        List<ChunkMesh> changed = new ArrayList<>(dirty.size());
+        if (dirty.isEmpty()) return changed;
+        version++;
+        for (long key : dirty) {
+            int cx = unpack(key, 2), cy = unpack(key, 1), cz = unpack(key, 0);
+            MeshBuffer mesh = marchingCubes.extract(chunkGrid(cx, cy, cz));
+            mesh.trimToSize();
+            ChunkMesh chunkMesh = new ChunkMesh(cx, cy, cz, version, mesh);
+            // An emptied chunk that clients may still show keeps a tombstone at the new version.
+            if (mesh.getIndexCount() > 0 || meshes.containsKey(key)) meshes.put(key, chunkMesh);
+            changed.add(chunkMesh);
+        }
+        return changed;
+    }
+
+    private VoxelGrid chunkGrid(int cx, int cy, int cz) {
+        int s = CHUNK_SIZE, n = CHUNK_SIZE + 1;
+        VoxelGrid grid = new VoxelGrid(n, n, n,
+            originX + (double) cx * s * cellSize, originY + (double) cy * s * cellSize, originZ + (double) cz * s * cellSize, cellSize);
+        byte[] target = grid.getData();
+        for (int z = 0; z < n; z++) {
+            for (int y = 0; y < n; y++) {
+                int sy = y == s ? 1 : 0, sz = z == s ? 1 : 0;
+                int row = (y % s) * s + (z % s) * s * s;
+                Chunk chunk = chunks.get(key(cx, cy + sy, cz + sz));
+                if (chunk != null) System.arraycopy(chunk.data, row, target, grid.index(0, y, z), s);
+                Chunk next = chunks.get(key(cx + 1, cy + sy, cz + sz));
+                if (next != null) target[grid.index(s, y, z)] = next.data[row];
+            }
+        }
+        return grid;
+    }
+
+    private static long key(int cx, int cy, int cz) {
+        return ((long) (cx + BIAS) & MASK) << (2 * BITS) | ((long) (cy + BIAS) & MASK) << BITS | ((long) (cz + BIAS) & MASK);
+    }
+
+    private static int unpack(long key, int slot) {
+        return (int) (key >>> (slot * BITS) & MASK) - BIAS;
+    }
+
+    public String getId() { return id; }
+    public double getOriginX() { return originX; }
+    public double getOriginY() { return originY; }
+    public double getOriginZ() { return originZ; }
+    public double getCellSize() { return cellSize; }
+    public long getLastAccess() { return lastAccess; }
+
+    public synchronized long getVersion() { return version; }
+}
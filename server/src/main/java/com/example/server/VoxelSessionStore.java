@@ -0,0 +1,49 @@
+package com.example.server;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class VoxelSessionStore {
+
+    private final Map<String, VoxelSession> sessions = new ConcurrentHashMap<>();
+    private final long idleTimeoutMillis;
+    private final int maxSessions;
+    private final int maxChunks;
+    private final int maxEditPoints;
+
+    public VoxelSessionStore(@Value("${mesh.session.idle-timeout-seconds:1800}") long idleTimeoutSeconds,
+                             @Value("${mesh.session.max-sessions:64}") int maxSessions,
+                             @Value("${mesh.session.max-chunks:4096}") int maxChunks,
+                             @Value("${mesh.session.max-edit-points:65536}") int maxEditPoints) {
+        this.idleTimeoutMillis = idleTimeoutSeconds * 1000;
+        this.maxSessions = maxSessions;
+        this.maxChunks = maxChunks;
+        this.maxEditPoints = maxEditPoints;
+    }
+
+    public VoxelSession create(VoxelGrid grid, MarchingCubes marchingCubes) {
+        expireIdle();
+        if (sessions.size() >= maxSessions) throw new IllegalStateException("Too many open sessions");
+        VoxelSession session = VoxelSession.fromGrid(UUID.randomUUID().toString(), grid, marchingCubes, maxChunks, maxEditPoints);
+        sessions.put(session.getId(), session);
+        return session;
+    }
+
+    public VoxelSession get(String id) {
+        return sessions.get(id);
+    }
+
+    public boolean remove(String id) {
+        return sessions.remove(id) != null;
+    }
+
+    private void expireIdle() {
+        long cutoff = System.currentTimeMillis() - idleTimeoutMillis;
+        sessions.values().removeIf(session -> session.getLastAccess() < cutoff);
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.server;
+
+// Storage behind the marching cubes kernel: a width x height x depth lattice of unsigned byte densities
+// (0 = empty, 255 = solid, iso-level 0.5), x fastest then y then z. VoxelGrid keeps the samples in one
+// heap array; MappedVolume keeps them in a memory-mapped file and is read a window of layers at a time.
+public interface VoxelVolume {
+
+    int getWidth();
+    int getHeight();
+    int getDepth();
+    double getCellSize();
+    double getOriginX();
+    double getOriginY();
+    double getOriginZ();
+
+    void set(int x, int y, int z, byte value);
+
+    // Copies the samples of layers [zStart, zEnd) into target.
+    void readLayers(int zStart, int zEnd, byte[] target);
+}
@@ -0,0 +1,328 @@
+package com.example.server;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+// Little-endian binary encoding used by /upload for application/octet-stream bodies.
+//
+// Request:  int32 magic "VXL1", int32 encoding, float32 cellSize, float32 originX/Y/Z (world-space
+//           center of lattice cell 0,0,0), followed by
+//             LATTICE:   int32 count, count * (int32 x, y, z)
+//             RUN_LENGTH: int32 width, height, depth, int32 runCount, runCount * uint32 length,
+//                        runs alternating empty/solid starting with empty, x fastest then y then z
+// Response: int32 vertexCount, int32 indexCount, int32 flags, float32[vertexCount * 3] positions,
+//           uint32[indexCount] indices, ready to be wrapped in Float32Array/Uint32Array for a Babylon
+//           VertexData. When flags has MESH_NORMALS set (requests with smoothing), float32[vertexCount * 3]
+//           normals follow the positions, before the indices.
+//           /voxelize accepts the same layout as its request body (world-space triangle mesh).
+// Stream:   a sequence of response frames whose indices continue the vertex numbering of the
+//           earlier frames, terminated by a frame with zero vertices, zero indices and no flags.
+// LOD:      int32 levelCount, then per level, coarsest first, int32 level (0 = full resolution),
+//           float32 cellSize and a self-contained response frame.
+// Batch:    request int32 itemCount, then per item int32 id, int32 byteLength and a request payload of
+//           that many bytes (so an invalid item can be skipped). The response has one
+//           record per item in completion order: int32 id, int32 status, and for BATCH_MESHED a
+//           self-contained response frame, for BATCH_FAILED int32 length and a UTF-8 message.
+public final class VoxelWireFormat {
+
+    public static final int MAGIC = 0x314C5856;
+    public static final int LATTICE = 0;
+    public static final int RUN_LENGTH = 1;
+    public static final int MESH_NORMALS = 1;
+    public static final int BATCH_MESHED = 0;
+    public static final int BATCH_FAILED = 1;
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    // Caps applied while decoding, so that sizes declared in a header cannot force large allocations
+    // before the payload backing them has arrived. maxHeapCells bounds grids that must be held on heap
+    // (lattice payloads and readGrid), maxCells any grid including memory-mapped ones, and maxElements the
+    // number of lattice voxels, mesh vertices and mesh indices. readVolume decodes run-length grids of more
+    // than heapCellLimit cells into a MappedVolume.
+    public static final class Limits {
+        public static final Limits DEFAULT = new Limits(1L << 28, 1L << 28, 1L << 34, 1 << 24);
+
+        private final long maxHeapCells;
+        private final long heapCellLimit;
+        private final long maxCells;
+        private final int maxElements;
+
+        public Limits(long maxHeapCells, long heapCellLimit, long maxCells, int maxElements) {
+            this.maxHeapCells = maxHeapCells;
+            this.heapCellLimit = Math.min(heapCellLimit, maxHeapCells);
+            this.maxCells = maxCells;
+            this.maxElements = maxElements;
+        }
+
+        public long getMaxHeapCells() { return maxHeapCells; }
+        public long getHeapCellLimit() { return heapCellLimit; }
+        public long getMaxCells() { return maxCells; }
+        public int getMaxElements() { return maxElements; }
+    }
+
+    private VoxelWireFormat() {}
+
+    public static int readBatchCount(InputStream in) throws IOException {
+        int count = readInt(in);
+        if (count < 0) throw new IOException("Negative batch size");
+        return count;
+    }
+
+    public static int readBatchId(InputStream in) throws IOException {
+        return readInt(in);
+    }
+
+    public static int readBatchItemLength(InputStream in) throws IOException {
+        int length = readInt(in);
+        if (length < 0) throw new IOException("Negative batch item length");
+        return length;
+    }
+
+    private static int readInt(InputStream in) throws IOException {
+        byte[] bytes = new byte[4];
+        try {
+            new DataInputStream(in).readFully(bytes);
+        } catch (EOFException e) {
+            throw new IOException("Truncated voxel payload", e);
+        }
+        return ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).getInt();
+    }
+
+    public static VoxelGrid readGrid(InputStream in) throws IOException {
+        return readGrid(in, -1, Limits.DEFAULT);
+    }
+
+    // bodyLength is the number of bytes the payload may occupy, or -1 if unknown (chunked requests). Counts
+    // that need more bytes than that are rejected before anything is allocated for them.
+    public static VoxelGrid readGrid(InputStream in, long bodyLength, Limits limits) throws IOException {
+        long heapCells = limits.getMaxHeapCells();
+        return (VoxelGrid) readVolume(in, bodyLength, new Limits(heapCells, heapCells, heapCells, limits.getMaxElements()), null);
+    }
+
+    // Like readGrid, but a run-length grid of more than the heap cell limit (padding included) is decoded
+    // into a bit-packed MappedVolume in spillDirectory instead of a heap array. The caller closes it.
+    public static VoxelVolume readVolume(InputStream in, long bodyLength, Limits limits, Path spillDirectory) throws IOException {
+        LittleEndianReader reader = new LittleEndianReader(in, bodyLength);
+        if (reader.readInt() != MAGIC) throw new IOException("Not a voxel payload");
+        int encoding = reader.readInt();
+        double cellSize = reader.readFloat();
+        double originX = reader.readFloat(), originY = reader.readFloat(), originZ = reader.readFloat();
+        if (!(cellSize > 0)) throw new IOException("Cell size must be positive");
+
+        switch (encoding) {
+            case LATTICE: {
+                int count = reader.readInt();
+                if (count < 0) throw new IOException("Negative voxel count");
+                if (count > limits.getMaxElements()) throw new IOException(count + " voxels exceed the limit of " + limits.getMaxElements());
+                reader.require(count * 12L);
+                int[] coordinates = reader.readInts(count * 3);
+                return VoxelGrid.fromLattice(coordinates, count, originX, originY, originZ, cellSize, limits.getMaxHeapCells());
+            }
+            case RUN_LENGTH: {
+                int width = reader.readInt(), height = reader.readInt(), depth = reader.readInt();
+                int runCount = reader.readInt();
+                if (width < 0 || height < 0 || depth < 0 || runCount < 0) throw new IOException("Invalid grid header");
+                int p = VoxelGrid.PADDING;
+                double cells = (width + 2.0 * p) * (height + 2.0 * p) * (depth + 2.0 * p);
+                if (cells > limits.getMaxCells())
+                    throw new IOException("Grid of " + width + "x" + height + "x" + depth + " cells exceeds the limit of " + limits.getMaxCells());
+                reader.require(runCount * 4L);
+                if (cells <= limits.getHeapCellLimit()) {
+                    VoxelGrid grid = new VoxelGrid(width + 2 * p, height + 2 * p, depth + 2 * p,
+                        originX - p * cellSize, originY - p * cellSize, originZ - p * cellSize, cellSize);
+                    readRuns(reader, grid, runCount);
+                    return grid;
+                }
+                MappedVolume volume = MappedVolume.createTemporary(spillDirectory, width + 2 * p, height + 2 * p, depth + 2 * p,
+                    originX - p * cellSize, originY - p * cellSize, originZ - p * cellSize, cellSize, MappedVolume.Cells.BIT);
+                try {
+                    readRuns(reader, volume, runCount);
+                } catch (IOException | RuntimeException e) {
+                    volume.close();
+                    throw e;
+                }
+                return volume;
+            }
+            default:
+                throw new IOException("Unknown voxel encoding " + encoding);
+        }
+    }
+
+    public static MeshBuffer readMesh(InputStream in) throws IOException {
+        return readMesh(in, -1, Limits.DEFAULT);
+    }
+
+    public static MeshBuffer readMesh(InputStream in, long bodyLength, Limits limits) throws IOException {
+        LittleEndianReader reader = new LittleEndianReader(in, bodyLength);
+        int vertexCount = reader.readInt(), indexCount = reader.readInt(), flags = reader.readInt();
+        if (vertexCount < 0 || indexCount < 0 || indexCount % 3 != 0 || (flags & ~MESH_NORMALS) != 0)
+            throw new IOException("Invalid mesh header");
+        if (vertexCount > limits.getMaxElements() || indexCount > limits.getMaxElements())
+            throw new IOException("Mesh exceeds the limit of " + limits.getMaxElements() + " vertices or indices");
+        boolean withNormals = (flags & MESH_NORMALS) != 0;
+        reader.require(vertexCount * (withNormals ? 24L : 12L) + indexCount * 4L);
+
+        float[] positions = reader.readFloats(vertexCount * 3);
+        float[] normals = withNormals ? reader.readFloats(vertexCount * 3) : null;
+        int[] indices = reader.readInts(indexCount);
+        for (int index : indices) {
+            if (index < 0 || index >= vertexCount) throw new IOException("Index " + index + " out of range");
+        }
+        return new MeshBuffer(positions, normals, indices);
+    }
+
+    // Fills the interior of a volume that already has PADDING empty cells on every side.
+    private static void readRuns(LittleEndianReader reader, VoxelVolume volume, int runCount) throws IOException {
+        int p = VoxelGrid.PADDING;
+        int width = volume.getWidth() - 2 * p, height = volume.getHeight() - 2 * p, depth = volume.getDepth() - 2 * p;
+        long total = (long) width * height * depth;
+        long cell = 0;
+        int x = 0, y = 0, z = 0;
+        for (int r = 0; r < runCount; r++) {
+            long length = reader.readInt() & 0xFFFFFFFFL;
+            if (cell + length > total) throw new IOException("Runs exceed grid size");
+            boolean solid = (r & 1) == 1;
+            for (long i = 0; i < length; i++) {
+                if (solid) volume.set(x + p, y + p, z + p, VoxelGrid.SOLID);
+                if (++x == width) {
+                    x = 0;
+                    if (++y == height) {
+                        y = 0;
+                        z++;
+                    }
+                }
+            }
+            cell += length;
+        }
+        if (cell != total) throw new IOException("Runs cover " + cell + " of " + total + " cells");
+    }
+
+    public static long meshSize(MeshBuffer mesh) {
+        return 12L + mesh.getVertexCount() * (mesh.hasNormals() ? 24L : 12L) + mesh.getIndexCount() * 4L;
+    }
+
+    public static void writeMesh(MeshBuffer mesh, OutputStream out) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(mesh.getVertexCount());
+        buffer.putInt(mesh.getIndexCount());
+        buffer.putInt(mesh.hasNormals() ? MESH_NORMALS : 0);
+
+        writeFloats(mesh.getPositions(), mesh.getVertexCount() * 3, buffer, out);
+        if (mesh.hasNormals()) writeFloats(mesh.getNormals(), mesh.getVertexCount() * 3, buffer, out);
+        int[] indices = mesh.getIndices();
+        for (int i = 0, n = mesh.getIndexCount(); i < n; i++) {
+            if (!buffer.hasRemaining()) flush(buffer, out);
+            buffer.putInt(indices[i]);
+        }
+        flush(buffer, out);
+    }
+
+    private static void writeFloats(float[] values, int count, ByteBuffer buffer, OutputStream out) throws IOException {
+        for (int i = 0; i < count; i++) {
+            if (!buffer.hasRemaining()) flush(buffer, out);
+            buffer.putFloat(values[i]);
+        }
+    }
+
+    public static void writeLevelCount(int levels, OutputStream out) throws IOException {
+        out.write(ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(levels).array());
+    }
+
+    public static void writeLevel(int level, double cellSize, MeshBuffer mesh, OutputStream out) throws IOException {
+        out.write(ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putInt(level).putFloat((float) cellSize).array());
+        writeMesh(mesh, out);
+    }
+
+    public static void writeBatchMesh(int id, MeshBuffer mesh, OutputStream out) throws IOException {
+        out.write(ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putInt(id).putInt(BATCH_MESHED).array());
+        writeMesh(mesh, out);
+    }
+
+    public static void writeBatchFailure(int id, String message, OutputStream out) throws IOException {
+        byte[] text = message.getBytes(StandardCharsets.UTF_8);
+        out.write(ByteBuffer.allocate(12).order(ByteOrder.LITTLE_ENDIAN).putInt(id).putInt(BATCH_FAILED).putInt(text.length).array());
+        out.write(text);
+    }
+
+    public static void writeEndOfStream(OutputStream out) throws IOException {
+        out.write(new byte[12]);
+    }
+
+    private static void flush(ByteBuffer buffer, OutputStream out) throws IOException {
+        out.write(buffer.array(), 0, buffer.position());
+        buffer.clear();
+    }
+
+    // Arrays are allocated a chunk at a time and grown as their data arrives, so a header claiming more
+    // data than is sent costs at most twice what was actually received.
+    private static final class LittleEndianReader {
+        private final DataInputStream in;
+        private final ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        private long remaining;
+
+        LittleEndianReader(InputStream in, long bodyLength) {
+            this.in = new DataInputStream(in);
+            this.remaining = bodyLength >= 0 ? bodyLength : Long.MAX_VALUE;
+        }
+
+        void require(long bytes) throws IOException {
+            if (bytes > remaining) throw new IOException("Payload declares " + bytes + " more bytes than its length allows");
+        }
+
+        int readInt() throws IOException {
+            fill(4);
+            return buffer.getInt(0);
+        }
+
+        float readFloat() throws IOException {
+            fill(4);
+            return buffer.getFloat(0);
+        }
+
+        int[] readInts(int length) throws IOException {
+            int[] target = new int[Math.min(length, CHUNK_SIZE / 4)];
+            int done = 0;
+            while (done < length) {
+                if (done == target.length) target = Arrays.copyOf(target, (int) Math.min(length, 2L * target.length));
+                int n = Math.min(target.length - done, CHUNK_SIZE / 4);
+                fill(n * 4);
+                buffer.asIntBuffer().get(target, done, n);
+                done += n;
+            }
+            return target;
+        }
+
+        float[] readFloats(int length) throws IOException {
+            float[] target = new float[Math.min(length, CHUNK_SIZE / 4)];
+            int done = 0;
+            while (done < length) {
+                if (done == target.length) target = Arrays.copyOf(target, (int) Math.min(length, 2L * target.length));
+                int n = Math.min(target.length - done, CHUNK_SIZE / 4);
+                fill(n * 4);
+                buffer.asFloatBuffer().get(target, done, n);
+                done += n;
+            }
+            return target;
+        }
+
+        private void fill(int bytes) throws IOException {
+            require(bytes);
+            remaining -= bytes;
+            buffer.clear();
+            try {
+                in.readFully(buffer.array(), 0, bytes);
+            } catch (EOFException e) {
+                throw new IOException("Truncated voxel payload", e);
+            }
+            buffer.limit(bytes);
+        }
+    }
+}
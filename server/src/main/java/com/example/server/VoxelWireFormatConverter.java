@@ -0,0 +1,64 @@
+package com.example.server;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+public class VoxelWireFormatConverter extends AbstractHttpMessageConverter<Object> {
+
+    private final VoxelWireFormat.Limits limits;
+    private final Path spillDirectory;
+
+    public VoxelWireFormatConverter() {
+        this(VoxelWireFormat.Limits.DEFAULT, null);
+    }
+
+    // Bodies read as VoxelVolume spill to a MappedVolume in spillDirectory beyond the heap cell limit.
+    public VoxelWireFormatConverter(VoxelWireFormat.Limits limits, Path spillDirectory) {
+        super(MediaType.APPLICATION_OCTET_STREAM);
+        this.limits = limits;
+        this.spillDirectory = spillDirectory;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return VoxelGrid.class == clazz || VoxelVolume.class == clazz || MeshBuffer.class == clazz;
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return supports(clazz) && canRead(mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        return MeshBuffer.class == clazz && canWrite(mediaType);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        try {
+            long bodyLength = inputMessage.getHeaders().getContentLength();
+            if (MeshBuffer.class == clazz) return VoxelWireFormat.readMesh(inputMessage.getBody(), bodyLength, limits);
+            if (VoxelVolume.class == clazz) return VoxelWireFormat.readVolume(inputMessage.getBody(), bodyLength, limits, spillDirectory);
+            return VoxelWireFormat.readGrid(inputMessage.getBody(), bodyLength, limits);
+        } catch (IOException | IllegalArgumentException | ArithmeticException e) {
+            throw new HttpMessageNotReadableException("Invalid binary payload: " + e.getMessage(), e, inputMessage);
+        }
+    }
+
+    @Override
+    protected Long getContentLength(Object mesh, MediaType contentType) {
+        return VoxelWireFormat.meshSize((MeshBuffer) mesh);
+    }
+
+    @Override
+    protected void writeInternal(Object mesh, HttpOutputMessage outputMessage) throws IOException {
+        VoxelWireFormat.writeMesh((MeshBuffer) mesh, outputMessage.getBody());
+    }
+}
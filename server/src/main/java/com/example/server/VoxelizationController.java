@@ -0,0 +1,41 @@
+package com.example.server;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+@RestController
+public class VoxelizationController {
+
+    private static final int MAX_CELL_SIZE_DIVISOR = 512;
+
+    @Autowired
+    private Voxelizer voxelizer;
+
+    @Autowired
+    private MarchingCubes marchingCubes;
+
+    @Autowired
+    private VoxelWireFormat.Limits wireFormatLimits;
+
+    @PostMapping(value = "/voxelize", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE, produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public MeshBuffer voxelize(@RequestBody MeshBuffer triangles,
+                               @RequestParam int cellSizeDivisor,
+                               @RequestParam(defaultValue = "SPAN") Voxelizer.Fill fill) {
+        if (cellSizeDivisor < 1 || cellSizeDivisor > MAX_CELL_SIZE_DIVISOR)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "cellSizeDivisor must be between 1 and " + MAX_CELL_SIZE_DIVISOR);
+
+        VoxelGrid grid;
+        try {
+            grid = voxelizer.voxelize(triangles, cellSizeDivisor, fill, wireFormatLimits.getMaxHeapCells());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+        return marchingCubes.extract(grid);
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.server;
+
+import java.util.Arrays;
+
+import org.springframework.stereotype.Component;
+
+// Server-side counterpart of the client's processGLBToVoxels. Triangles are rasterized into a uniform
+// grid of axis-aligned columns (one column per cell center, projected along x, y and z), so every
+// triangle only visits the columns its projection covers instead of every cell casting rays.
+@Component
+public class Voxelizer {
+
+    public enum Fill {
+        // A cell is solid when the surface is hit in all six axis directions from its center, which is
+        // what the client's six pickWithRay calls test. Tolerates meshes that are not watertight.
+        SPAN,
+        // A cell is solid when an odd number of surface crossings lie below it along z. Exact for
+        // closed meshes.
+        PARITY
+    }
+
+    private static final double EPSILON = 1e-9;
+
+    public VoxelGrid voxelize(MeshBuffer triangles, int cellSizeDivisor, Fill fill) {
+        return voxelize(triangles, cellSizeDivisor, fill, Long.MAX_VALUE);
+    }
+
+    // As above, rejecting models whose padded grid would hold more than maxCells cells before anything
+    // is allocated.
+    public VoxelGrid voxelize(MeshBuffer triangles, int cellSizeDivisor, Fill fill, long maxCells) {
+        float[] positions = triangles.getPositions();
+        int vertexCount = triangles.getVertexCount();
+        if (vertexCount == 0 || triangles.getIndexCount() == 0) return new VoxelGrid(0, 0, 0, 0, 0, 0, 1);
+
+        double[] min = { Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY };
+        double[] max = { Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY };
+        for (int i = 0; i < vertexCount * 3; i++) {
+            int axis = i % 3;
+            if (positions[i] < min[axis]) min[axis] = positions[i];
+            if (positions[i] > max[axis]) max[axis] = positions[i];
+        }
+
+        double minSize = Math.min(max[0] - min[0], Math.min(max[1] - min[1], max[2] - min[2]));
+        if (!(minSize > 0)) throw new IllegalArgumentException("Model has no volume");
+        double cellSize = minSize / cellSizeDivisor;
+
+        int p = VoxelGrid.PADDING;
+        double[] padded = new double[3];
+        for (int axis = 0; axis < 3; axis++) {
+            padded[axis] = Math.ceil((max[axis] - min[axis]) / cellSize) + 1 + 2 * p;
+        }
+        if (!(padded[0] * padded[1] * padded[2] <= maxCells))
+            throw new IllegalArgumentException("Grid of " + (long) padded[0] + "x" + (long) padded[1] + "x" + (long) padded[2]
+                + " cells exceeds the limit of " + maxCells);
+
+        int[] cells = new int[3];
+        for (int axis = 0; axis < 3; axis++) {
+            cells[axis] = (int) padded[axis] - 2 * p;
+        }
+
+        VoxelGrid grid = new VoxelGrid(cells[0] + 2 * p, cells[1] + 2 * p, cells[2] + 2 * p,
+            min[0] + (0.5 - p) * cellSize, min[1] + (0.5 - p) * cellSize, min[2] + (0.5 - p) * cellSize, cellSize);
+
+        if (fill == Fill.PARITY) fillParity(grid, triangles, min, cellSize, cells);
+        else fillSpan(grid, triangles, min, cellSize, cells);
+        return grid;
+    }
+
+    private static void fillSpan(VoxelGrid grid, MeshBuffer triangles, double[] min, double cellSize, int[] cells) {
+        float[][] nearest = new float[3][];
+        float[][] farthest = new float[3][];
+        for (int axis = 0; axis < 3; axis++) {
+            int u = (axis + 1) % 3, v = (axis + 2) % 3;
+            float[] low = new float[cells[u] * cells[v]];
+            float[] high = new float[cells[u] * cells[v]];
+            Arrays.fill(low, Float.POSITIVE_INFINITY);
+            Arrays.fill(high, Float.NEGATIVE_INFINITY);
+            rasterize(triangles, axis, min, cellSize, cells, (column, w) -> {
+                if (w < low[column]) low[column] = (float) w;
+                if (w > high[column]) high[column] = (float) w;
+            });
+            nearest[axis] = low;
+            farthest[axis] = high;
+        }
+
+        int p = VoxelGrid.PADDING;
+        int[] c = new int[3];
+        for (c[2] = 0; c[2] < cells[2]; c[2]++) {
+            for (c[1] = 0; c[1] < cells[1]; c[1]++) {
+                for (c[0] = 0; c[0] < cells[0]; c[0]++) {
+                    boolean inside = true;
+                    for (int axis = 0; axis < 3 && inside; axis++) {
+                        int u = (axis + 1) % 3, v = (axis + 2) % 3;
+                        int column = c[u] + cells[u] * c[v];
+                        double center = min[axis] + (c[axis] + 0.5) * cellSize;
+                        inside = nearest[axis][column] <= center && center <= farthest[axis][column];
+                    }
+                    if (inside) grid.set(c[0] + p, c[1] + p, c[2] + p, VoxelGrid.SOLID);
+                }
+            }
+        }
+    }
+
+    private static void fillParity(VoxelGrid grid, MeshBuffer triangles, double[] min, double cellSize, int[] cells) {
+        int columns = cells[0] * cells[1];
+        int[] offsets = new int[columns + 1];
+        rasterize(triangles, 2, min, cellSize, cells, (column, w) -> offsets[column + 1]++);
+        for (int i = 0; i < columns; i++) offsets[i + 1] += offsets[i];
+
+        float[] hits = new float[offsets[columns]];
+        int[] cursor = Arrays.copyOf(offsets, columns);
+        rasterize(triangles, 2, min, cellSize, cells, (column, w) -> hits[cursor[column]++] = (float) w);
+
+        int p = VoxelGrid.PADDING;
+        for (int y = 0; y < cells[1]; y++) {
+            for (int x = 0; x < cells[0]; x++) {
+                int column = x + cells[0] * y;
+                int from = offsets[column], to = offsets[column + 1];
+                if (to - from < 2) continue;
+                Arrays.sort(hits, from, to);
+                int next = from;
+                for (int z = 0; z < cells[2]; z++) {
+                    double center = min[2] + (z + 0.5) * cellSize;
+                    while (next < to && hits[next] < center) next++;
+                    if (((next - from) & 1) == 1) grid.set(x + p, y + p, z + p, VoxelGrid.SOLID);
+                }
+            }
+        }
+    }
+
+    private static double orientation(float[] positions, int a, int b, int c, int u, int v) {
+        return (positions[b + u] - (double) positions[a + u]) * (positions[c + v] - (double) positions[a + v])
+            - (positions[b + v] - (double) positions[a + v]) * (positions[c + u] - (double) positions[a + u]);
+    }
+
+    // Top-left rule: a line passing exactly through an edge shared by two triangles is counted for only
+    // one of them, which keeps crossing counts correct for the parity fill.
+    private static boolean covers(double edge, double du, double dv) {
+        return edge > 0 || (edge == 0 && (dv > 0 || (dv == 0 && du < 0)));
+    }
+
+    private interface ColumnHit {
+        void hit(int column, double w);
+    }
+
+    // Intersects every triangle with the lines parallel to the given axis that pass through the cell
+    // centers, reporting the column index (u fastest, with u/v the two other axes in cyclic order) and
+    // the hit coordinate along the axis.
+    private static void rasterize(MeshBuffer triangles, int axis, double[] min, double cellSize, int[] cells, ColumnHit sink) {
+        int u = (axis + 1) % 3, v = (axis + 2) % 3;
+        int columnsU = cells[u], columnsV = cells[v];
+        float[] positions = triangles.getPositions();
+        int[] indices = triangles.getIndices();
+
+        for (int t = 0; t < triangles.getIndexCount(); t += 3) {
+            int a = indices[t] * 3, b = indices[t + 1] * 3, c = indices[t + 2] * 3;
+            if (orientation(positions, a, b, c, u, v) < 0) {
+                int swap = b;
+                b = c;
+                c = swap;
+            }
+            double au = positions[a + u], av = positions[a + v], aw = positions[a + axis];
+            double bu = positions[b + u], bv = positions[b + v], bw = positions[b + axis];
+            double cu = positions[c + u], cv = positions[c + v], cw = positions[c + axis];
+
+            double area = (bu - au) * (cv - av) - (bv - av) * (cu - au);
+            if (area < EPSILON) continue;
+
+            int iMin = Math.max(0, (int) Math.ceil((Math.min(au, Math.min(bu, cu)) - min[u]) / cellSize - 0.5));
+            int iMax = Math.min(columnsU - 1, (int) Math.floor((Math.max(au, Math.max(bu, cu)) - min[u]) / cellSize - 0.5));
+            int jMin = Math.max(0, (int) Math.ceil((Math.min(av, Math.min(bv, cv)) - min[v]) / cellSize - 0.5));
+            int jMax = Math.min(columnsV - 1, (int) Math.floor((Math.max(av, Math.max(bv, cv)) - min[v]) / cellSize - 0.5));
+
+            for (int j = jMin; j <= jMax; j++) {
+                double pv = min[v] + (j + 0.5) * cellSize;
+                for (int i = iMin; i <= iMax; i++) {
+                    double pu = min[u] + (i + 0.5) * cellSize;
+                    double e0 = (bu - pu) * (cv - pv) - (bv - pv) * (cu - pu);
+                    double e1 = (cu - pu) * (av - pv) - (cv - pv) * (au - pu);
+                    double e2 = (au - pu) * (bv - pv) - (av - pv) * (bu - pu);
+                    if (!covers(e0, cu - bu, cv - bv) || !covers(e1, au - cu, av - cv) || !covers(e2, bu - au, bv - av)) continue;
+                    sink.hit(i + columnsU * j, (e0 * aw + e1 * bw + e2 * cw) / area);
+                }
+            }
+        }
+    }
+}
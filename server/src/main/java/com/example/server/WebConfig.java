@@ -1,17 +1,51 @@
 package com.example.server;
 
+import java.nio.file.Path;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
+
+    @Value("${mesh.volume.heap-cell-limit:134217728}")
+    private long heapCellLimit;
+
+    @Value("${mesh.volume.spill-directory:${java.io.tmpdir}}")
+    private String spillDirectory;
+
+    @Value("${mesh.volume.max-heap-cells:268435456}")
+    private long maxHeapCells;
+
+    @Value("${mesh.volume.max-cells:17179869184}")
+    private long maxCells;
+
+    @Value("${mesh.payload.max-elements:16777216}")
+    private int maxElements;
+
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/**")
                 .allowedOrigins("http://localhost:3000")
                 .allowedMethods("GET", "POST", "PUT", "DELETE")
                 .allowedHeaders("*")
+                .exposedHeaders("ETag", "Location")
                 .allowCredentials(true);
     }
+
+    @Bean
+    public VoxelWireFormat.Limits wireFormatLimits() {
+        return new VoxelWireFormat.Limits(maxHeapCells, heapCellLimit, maxCells, maxElements);
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(0, new VoxelWireFormatConverter(wireFormatLimits(), Path.of(spillDirectory)));
+        converters.add(1, new GlbMessageConverter());
+    }
 }
@@ -0,0 +1,304 @@
+package com.example.server;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MarchingCubesTests {
+
+	private final MarchingCubes marchingCubes = new MarchingCubes();
+
+	static List<VoxelCoordinates> block(int size, double cellSize, double offset) {
+		List<VoxelCoordinates> centers = new ArrayList<>();
+		for (int z = 0; z < size; z++)
+			for (int y = 0; y < size; y++)
+				for (int x = 0; x < size; x++)
+					centers.add(new VoxelCoordinates(offset + (x + 0.5) * cellSize, offset + (y + 0.5) * cellSize, offset + (z + 0.5) * cellSize));
+		return centers;
+	}
+
+	@Test
+	void snapsCellCentersToPaddedLattice() {
+		VoxelGrid grid = VoxelGrid.fromCellCenters(block(3, 0.25, -1.0));
+
+		assertEquals(5, grid.getWidth());
+		assertEquals(5, grid.getHeight());
+		assertEquals(5, grid.getDepth());
+		assertEquals(0.25, grid.getCellSize(), 1e-9);
+		assertEquals(0f, grid.density(0, 0, 0));
+		assertEquals(1f, grid.density(1, 1, 1));
+		assertEquals(1f, grid.density(3, 3, 3));
+		assertEquals(0f, grid.density(4, 3, 3));
+		assertEquals(-1.0 + 0.125, grid.worldX(1), 1e-9);
+	}
+
+	@Test
+	void infersCellSizeFromSmallestGapBetweenCenters() {
+		VoxelGrid grid = VoxelGrid.fromCellCenters(List.of(new VoxelCoordinates(0, 0, 0), new VoxelCoordinates(2, 0, 0), new VoxelCoordinates(3, 5, 0)));
+
+		assertEquals(1.0, grid.getCellSize(), 1e-9);
+		assertEquals(6, grid.getWidth());
+		assertEquals(1f, grid.density(3, 1, 1));
+		assertEquals(1f, grid.density(4, 6, 1));
+		assertEquals(0f, grid.density(2, 1, 1));
+	}
+
+	@Test
+	void singleVoxelProducesClosedSurface() {
+		List<VoxelCoordinates> mesh = marchingCubes.generateMesh(block(1, 1.0, 0.0));
+
+		assertEquals(0, mesh.size() % 3);
+		assertTrue(mesh.size() > 0);
+		for (VoxelCoordinates v : mesh) {
+			assertTrue(v.getX() >= 0 && v.getX() <= 1);
+			assertTrue(v.getY() >= 0 && v.getY() <= 1);
+			assertTrue(v.getZ() >= 0 && v.getZ() <= 1);
+		}
+	}
+
+	@Test
+	void indexedMeshSharesEdgeVertices() {
+		MeshBuffer mesh = marchingCubes.extract(VoxelGrid.fromCellCenters(block(1, 1.0, 0.0)));
+
+		assertEquals(6, mesh.getVertexCount());
+		assertEquals(8, mesh.getTriangleCount());
+	}
+
+	@Test
+	void indexedMeshIsWatertight() {
+		MeshBuffer mesh = marchingCubes.extract(VoxelGrid.fromCellCenters(block(4, 0.5, 2.0)));
+
+		Map<Long, Integer> edgeUse = new HashMap<>();
+		int[] indices = mesh.getIndices();
+		for (int i = 0; i < mesh.getIndexCount(); i += 3) {
+			for (int k = 0; k < 3; k++) {
+				long a = indices[i + k], b = indices[i + (k + 1) % 3];
+				edgeUse.merge(Math.min(a, b) << 32 | Math.max(a, b), 1, Integer::sum);
+			}
+		}
+		assertTrue(edgeUse.values().stream().allMatch(n -> n == 2));
+	}
+
+	static List<VoxelCoordinates> sphere(int radius, double cellSize) {
+		List<VoxelCoordinates> centers = new ArrayList<>();
+		for (int z = -radius; z <= radius; z++)
+			for (int y = -radius; y <= radius; y++)
+				for (int x = -radius; x <= radius; x++)
+					if (x * x + y * y + z * z <= radius * radius)
+						centers.add(new VoxelCoordinates(x * cellSize, y * cellSize, z * cellSize));
+		return centers;
+	}
+
+	@Test
+	void parallelExtractionMatchesSerial() {
+		VoxelGrid grid = VoxelGrid.fromCellCenters(sphere(20, 0.1));
+		ParallelMarchingCubes parallel = new ParallelMarchingCubes(marchingCubes, 4, 2);
+		try {
+			MeshBuffer serial = marchingCubes.extract(grid);
+			MeshBuffer stitched = parallel.extract(grid);
+
+			assertEquals(serial.getVertexCount(), stitched.getVertexCount());
+			assertArrayEquals(Arrays.copyOf(serial.getPositions(), serial.getVertexCount() * 3),
+					Arrays.copyOf(stitched.getPositions(), stitched.getVertexCount() * 3));
+			assertArrayEquals(Arrays.copyOf(serial.getIndices(), serial.getIndexCount()),
+					Arrays.copyOf(stitched.getIndices(), stitched.getIndexCount()));
+		}
+		finally {
+			parallel.shutdown();
+		}
+	}
+
+	// Blobs of dense samples with every byte jittered on its side of the iso-level, plus isolated specks
+	// that leave a single straddling sample inside otherwise homogeneous bricks.
+	static VoxelGrid noise(int width, int height, int depth, long seed) {
+		Random random = new Random(seed);
+		double[][] blobs = new double[6][];
+		for (int i = 0; i < blobs.length; i++)
+			blobs[i] = new double[] { random.nextDouble() * width, random.nextDouble() * height, random.nextDouble() * depth, 3 + random.nextDouble() * 6 };
+		VoxelGrid grid = new VoxelGrid(width, height, depth, 0, 0, 0, 1);
+		for (int z = 0; z < depth; z++)
+			for (int y = 0; y < height; y++)
+				for (int x = 0; x < width; x++) {
+					boolean inside = false;
+					for (double[] b : blobs) {
+						double dx = x - b[0], dy = y - b[1], dz = z - b[2];
+						inside |= dx * dx + dy * dy + dz * dz <= b[3] * b[3];
+					}
+					if (random.nextInt(500) == 0) inside = !inside;
+					grid.set(x, y, z, (byte) (inside ? 128 + random.nextInt(128) : random.nextInt(128)));
+				}
+		return grid;
+	}
+
+	private static final int[][] CORNERS = { { 0, 0, 0 }, { 1, 0, 0 }, { 1, 1, 0 }, { 0, 1, 0 }, { 0, 0, 1 }, { 1, 0, 1 }, { 1, 1, 1 }, { 0, 1, 1 } };
+
+	private static final int[] EDGE_CORNERS = { 0, 1, 1, 2, 3, 2, 0, 3, 4, 5, 5, 6, 7, 6, 4, 7, 0, 4, 1, 5, 2, 6, 3, 7 };
+
+	// Marches every cell straight from the tables, sharing edge vertices through a map keyed by the edge's
+	// lower lattice point and axis, so vertices come out in the same order as the cached kernel.
+	static MeshBuffer referenceExtract(VoxelGrid grid) {
+		MeshBuffer mesh = new MeshBuffer();
+		Map<Long, Integer> edgeVertices = new HashMap<>();
+		int width = grid.getWidth(), height = grid.getHeight();
+		int[] vertexList = new int[12];
+		long active = 0;
+		for (int z = 0; z < grid.getDepth() - 1; z++)
+			for (int y = 0; y < height - 1; y++)
+				for (int x = 0; x < width - 1; x++) {
+					float[] cube = new float[8];
+					int cubeIndex = 0;
+					for (int c = 0; c < 8; c++) {
+						cube[c] = grid.density(x + CORNERS[c][0], y + CORNERS[c][1], z + CORNERS[c][2]);
+						if (cube[c] > 0.5f) cubeIndex |= 1 << c;
+					}
+					int edges = MarchingCubesTables.edgeTable[cubeIndex];
+					if (edges == 0) continue;
+					active++;
+					for (int e = 0; e < 12; e++) {
+						if ((edges & 1 << e) == 0) continue;
+						int p1 = EDGE_CORNERS[2 * e], p2 = EDGE_CORNERS[2 * e + 1];
+						long point = x + CORNERS[p1][0] + (long) width * (y + CORNERS[p1][1] + (long) height * (z + CORNERS[p1][2]));
+						int axis = CORNERS[p2][0] != CORNERS[p1][0] ? 0 : CORNERS[p2][1] != CORNERS[p1][1] ? 1 : 2;
+						final int cx = x, cy = y, cz = z;
+						vertexList[e] = edgeVertices.computeIfAbsent(point * 3 + axis,
+								key -> MarchingCubes.VertexInterp(mesh, grid, cube[p1], cube[p2], cx, cy, cz, p1, p2));
+					}
+					int[] triangles = MarchingCubesTables.triTable[cubeIndex];
+					for (int t = 0; triangles[t] != -1; t += 3)
+						mesh.addTriangle(vertexList[triangles[t]], vertexList[triangles[t + 1]], vertexList[triangles[t + 2]]);
+				}
+		mesh.addActiveCells(active);
+		return mesh;
+	}
+
+	@Test
+	void brickSkippingMatchesUnskippedReferenceOnNoise() {
+		for (long seed = 1; seed <= 3; seed++) {
+			VoxelGrid grid = noise(37, 29, 41, seed);
+			MeshBuffer mesh = marchingCubes.extract(grid);
+			MeshBuffer reference = referenceExtract(grid);
+
+			assertEquals(marchingCubes.countActiveCells(grid), mesh.getActiveCells());
+			assertEquals(reference.getActiveCells(), mesh.getActiveCells());
+			assertTrue(mesh.getTriangleCount() > 0);
+			assertEquals(reference.getVertexCount(), mesh.getVertexCount());
+			assertArrayEquals(Arrays.copyOf(reference.getPositions(), reference.getVertexCount() * 3),
+					Arrays.copyOf(mesh.getPositions(), mesh.getVertexCount() * 3));
+			assertArrayEquals(Arrays.copyOf(reference.getIndices(), reference.getIndexCount()),
+					Arrays.copyOf(mesh.getIndices(), mesh.getIndexCount()));
+		}
+	}
+
+	@Test
+	void downsampledLevelsStayClosedAndInPlace() {
+		VoxelGrid grid = VoxelGrid.fromCellCenters(sphere(16, 0.1));
+		VoxelGrid half = grid.downsample();
+		VoxelGrid quarter = half.downsample();
+
+		assertEquals(0.2, half.getCellSize(), 1e-9);
+		assertEquals(0.4, quarter.getCellSize(), 1e-9);
+		int previous = Integer.MAX_VALUE;
+		for (VoxelGrid level : new VoxelGrid[] { grid, half, quarter }) {
+			MeshBuffer mesh = marchingCubes.extract(level);
+			assertTrue(mesh.getTriangleCount() < previous);
+			previous = mesh.getTriangleCount();
+
+			Map<Long, Integer> edgeUse = new HashMap<>();
+			int[] indices = mesh.getIndices();
+			for (int i = 0; i < mesh.getIndexCount(); i += 3) {
+				for (int k = 0; k < 3; k++) {
+					long a = indices[i + k], b = indices[i + (k + 1) % 3];
+					edgeUse.merge(Math.min(a, b) << 32 | Math.max(a, b), 1, Integer::sum);
+				}
+			}
+			assertTrue(edgeUse.values().stream().allMatch(n -> n == 2));
+
+			float[] positions = mesh.getPositions();
+			for (int v = 0; v < mesh.getVertexCount(); v++) {
+				double r = Math.sqrt(positions[v * 3] * positions[v * 3] + positions[v * 3 + 1] * positions[v * 3 + 1] + positions[v * 3 + 2] * positions[v * 3 + 2]);
+				assertEquals(1.65, r, 0.1 + level.getCellSize());
+			}
+		}
+	}
+
+	static double radialDeviation(MeshBuffer mesh) {
+		float[] positions = mesh.getPositions();
+		double[] radii = new double[mesh.getVertexCount()];
+		for (int v = 0; v < radii.length; v++)
+			radii[v] = Math.sqrt(positions[v * 3] * positions[v * 3] + positions[v * 3 + 1] * positions[v * 3 + 1] + positions[v * 3 + 2] * positions[v * 3 + 2]);
+		double mean = Arrays.stream(radii).average().orElse(0);
+		return Math.sqrt(Arrays.stream(radii).map(r -> (r - mean) * (r - mean)).average().orElse(0));
+	}
+
+	@Test
+	void smoothedFieldGivesRounderSurfaceWithOutwardNormals() {
+		VoxelGrid grid = VoxelGrid.fromCellCenters(sphere(12, 0.1));
+		MeshBuffer blocky = marchingCubes.extract(grid);
+		MeshBuffer smooth = marchingCubes.extract(grid.blur(1.0), true);
+
+		assertTrue(smooth.hasNormals());
+		assertTrue(radialDeviation(smooth) < radialDeviation(blocky) / 2);
+
+		float[] positions = smooth.getPositions(), normals = smooth.getNormals();
+		for (int v = 0; v < smooth.getVertexCount(); v++) {
+			double nx = normals[v * 3], ny = normals[v * 3 + 1], nz = normals[v * 3 + 2];
+			double px = positions[v * 3], py = positions[v * 3 + 1], pz = positions[v * 3 + 2];
+			assertEquals(1.0, Math.sqrt(nx * nx + ny * ny + nz * nz), 1e-4);
+			assertTrue((nx * px + ny * py + nz * pz) / Math.sqrt(px * px + py * py + pz * pz) > 0.9);
+		}
+
+		ParallelMarchingCubes parallel = new ParallelMarchingCubes(marchingCubes, 4, 2);
+		try {
+			MeshBuffer stitched = parallel.extract(grid.blur(1.0), true);
+			assertArrayEquals(Arrays.copyOf(normals, smooth.getVertexCount() * 3), Arrays.copyOf(stitched.getNormals(), stitched.getVertexCount() * 3));
+		}
+		finally {
+			parallel.shutdown();
+		}
+	}
+
+	@Test
+	void mappedVolumeStreamsLikeHeapGrid(@TempDir Path directory) throws IOException {
+		VoxelGrid grid = VoxelGrid.fromLattice(VoxelControllerTests.sphereLattice(40), VoxelControllerTests.sphereLattice(40).length / 3, 0, 0, 0, 1);
+		assertTrue(grid.getDepth() > 2 * MarchingCubes.STREAM_LAYERS);
+		MeshBuffer expected = marchingCubes.extract(grid);
+
+		for (MappedVolume.Cells cells : MappedVolume.Cells.values()) {
+			try (MappedVolume volume = MappedVolume.createTemporary(directory, grid.getWidth(), grid.getHeight(), grid.getDepth(),
+					grid.getOriginX(), grid.getOriginY(), grid.getOriginZ(), grid.getCellSize(), cells)) {
+				for (int z = 0; z < grid.getDepth(); z++)
+					for (int y = 0; y < grid.getHeight(); y++)
+						for (int x = 0; x < grid.getWidth(); x++)
+							if (grid.density(x, y, z) > 0.5f) volume.set(x, y, z, VoxelGrid.SOLID);
+
+				MeshBuffer streamed = new MeshBuffer();
+				List<Integer> layers = new ArrayList<>();
+				marchingCubes.extract(volume, streamed, layers::add);
+
+				assertEquals(grid.getDepth() - 1, layers.size());
+				assertEquals(expected.getVertexCount(), streamed.getVertexCount());
+				assertArrayEquals(Arrays.copyOf(expected.getIndices(), expected.getIndexCount()),
+						Arrays.copyOf(streamed.getIndices(), streamed.getIndexCount()));
+				assertArrayEquals(Arrays.copyOf(expected.getPositions(), expected.getVertexCount() * 3),
+						Arrays.copyOf(streamed.getPositions(), streamed.getVertexCount() * 3));
+			}
+		}
+	}
+
+	@Test
+	void emptyInputProducesEmptyMesh() {
+		assertTrue(marchingCubes.generateMesh(new ArrayList<>()).isEmpty());
+	}
+}
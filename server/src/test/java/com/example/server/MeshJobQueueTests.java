@@ -0,0 +1,119 @@
+package com.example.server;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+import org.junit.jupiter.api.Test;
+
+class MeshJobQueueTests {
+
+	static class GatedMarchingCubes extends MarchingCubes {
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+
+		@Override
+		public void extract(VoxelGrid grid, MeshBuffer mesh, IntConsumer layerDone) {
+			started.countDown();
+			try {
+				release.await(10, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			super.extract(grid, mesh, layerDone);
+		}
+	}
+
+	static void awaitFinished(MeshJob job) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (!job.isFinished() && System.currentTimeMillis() < deadline) Thread.sleep(5);
+	}
+
+	@Test
+	void runsJobAndReportsProgressToListeners() throws Exception {
+		MarchingCubes marchingCubes = new MarchingCubes();
+		MeshJobQueue queue = new MeshJobQueue(marchingCubes, new MeshCache(1 << 20), 1, 4, 60);
+		try {
+			VoxelGrid grid = VoxelGrid.fromCellCenters(MarchingCubesTests.sphere(10, 0.1));
+			MeshJob job = queue.submit(grid);
+			List<Integer> percents = new CopyOnWriteArrayList<>();
+			job.addListener(update -> percents.add(update.getPercent()));
+			awaitFinished(job);
+
+			assertEquals(MeshJob.State.DONE, job.getState());
+			assertEquals(100, percents.get(percents.size() - 1));
+			for (int i = 1; i < percents.size(); i++) assertTrue(percents.get(i) >= percents.get(i - 1));
+
+			MeshBuffer expected = marchingCubes.extract(grid);
+			assertArrayEquals(Arrays.copyOf(expected.getIndices(), expected.getIndexCount()),
+					Arrays.copyOf(queue.result(job).getIndices(), queue.result(job).getIndexCount()));
+
+			int recorded = queue.getJobCount();
+			for (int i = 0; i < 100; i++) {
+				MeshJob cached = queue.submit(grid);
+				assertEquals(MeshJob.State.DONE, cached.getState());
+				assertSame(queue.result(job), queue.result(queue.get(cached.getId())));
+			}
+			assertEquals(recorded, queue.getJobCount());
+		}
+		finally {
+			queue.shutdown();
+		}
+	}
+
+	@Test
+	void finishedJobsResolveResultsThroughTheCache() throws Exception {
+		MeshCache meshCache = new MeshCache(1 << 20);
+		MeshJobQueue queue = new MeshJobQueue(new MarchingCubes(), meshCache, 1, 4, 60);
+		try {
+			MeshJob first = queue.submit(VoxelGrid.fromCellCenters(MarchingCubesTests.sphere(10, 0.1)));
+			awaitFinished(first);
+			assertEquals(MeshJob.State.DONE, first.getState());
+			assertEquals(queue.result(first).getTriangleCount(), first.getTriangleCount());
+
+			for (int size = 2; queue.result(first) != null && size < 64; size++) {
+				MeshJob filler = queue.submit(VoxelGrid.fromCellCenters(MarchingCubesTests.sphere(size, 0.1)));
+				awaitFinished(filler);
+			}
+			assertNull(queue.result(first));
+			assertEquals(MeshJob.State.DONE, first.getState());
+		}
+		finally {
+			queue.shutdown();
+		}
+	}
+
+	@Test
+	void rejectsSubmissionsBeyondBacklog() throws Exception {
+		GatedMarchingCubes marchingCubes = new GatedMarchingCubes();
+		MeshJobQueue queue = new MeshJobQueue(marchingCubes, new MeshCache(1 << 20), 1, 1, 60);
+		try {
+			MeshJob running = queue.submit(VoxelGrid.fromCellCenters(MarchingCubesTests.block(2, 1.0, 0.0)));
+			assertTrue(marchingCubes.started.await(10, TimeUnit.SECONDS));
+			MeshJob queued = queue.submit(VoxelGrid.fromCellCenters(MarchingCubesTests.block(3, 1.0, 0.0)));
+			assertEquals(MeshJob.State.QUEUED, queued.getState());
+
+			assertThrows(IllegalStateException.class, () -> queue.submit(VoxelGrid.fromCellCenters(MarchingCubesTests.block(4, 1.0, 0.0))));
+
+			assertTrue(queue.cancel(queued.getId()));
+			marchingCubes.release.countDown();
+			awaitFinished(running);
+			assertEquals(MeshJob.State.DONE, running.getState());
+			assertEquals(MeshJob.State.CANCELLED, queued.getState());
+		}
+		finally {
+			queue.shutdown();
+		}
+	}
+}
@@ -0,0 +1,73 @@
+package com.example.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class MeshSimplifierTests {
+
+	private final MarchingCubes marchingCubes = new MarchingCubes();
+
+	private final MeshSimplifier simplifier = new MeshSimplifier();
+
+	static boolean watertight(MeshBuffer mesh) {
+		Map<Long, Integer> edgeUse = new HashMap<>();
+		int[] indices = mesh.getIndices();
+		for (int i = 0; i < mesh.getIndexCount(); i += 3) {
+			for (int k = 0; k < 3; k++) {
+				long a = indices[i + k], b = indices[i + (k + 1) % 3];
+				edgeUse.merge(Math.min(a, b) << 32 | Math.max(a, b), 1, Integer::sum);
+			}
+		}
+		return edgeUse.values().stream().allMatch(n -> n == 2);
+	}
+
+	@Test
+	void reducesSphereToTriangleBudget() {
+		MeshBuffer mesh = marchingCubes.extract(VoxelGrid.fromCellCenters(MarchingCubesTests.sphere(12, 0.1)));
+		int target = mesh.getTriangleCount() / 4;
+
+		MeshBuffer simplified = simplifier.simplify(mesh, target, 0);
+
+		assertTrue(simplified.getTriangleCount() <= target);
+		assertTrue(simplified.getTriangleCount() > target / 2);
+		assertTrue(watertight(simplified));
+		float[] positions = simplified.getPositions();
+		for (int v = 0; v < simplified.getVertexCount(); v++) {
+			double r = Math.sqrt(positions[v * 3] * positions[v * 3] + positions[v * 3 + 1] * positions[v * 3 + 1] + positions[v * 3 + 2] * positions[v * 3 + 2]);
+			assertTrue(Math.abs(r - 1.2) < 0.25, "vertex drifted off the surface: " + r);
+		}
+	}
+
+	@Test
+	void errorToleranceKeepsFlatFacesOnly() {
+		MeshBuffer mesh = marchingCubes.extract(VoxelGrid.fromCellCenters(MarchingCubesTests.block(8, 0.5, 0.0)));
+
+		MeshBuffer simplified = simplifier.simplify(mesh, 0, 1e-4);
+
+		assertTrue(simplified.getTriangleCount() < mesh.getTriangleCount() / 4);
+		assertTrue(watertight(simplified));
+		float[] positions = simplified.getPositions();
+		for (int i = 0; i < simplified.getVertexCount() * 3; i++) {
+			assertTrue(positions[i] >= -1e-4 && positions[i] <= 4 + 1e-4);
+		}
+	}
+
+	@Test
+	void weldsDuplicatedCorners() {
+		MeshBuffer soup = new MeshBuffer();
+		float[][] corners = { { 0, 0, 0 }, { 1, 0, 0 }, { 0, 1, 0 }, { 1, 0, 0 }, { 1, 1, 0 }, { 0, 1, 0 } };
+		for (float[] c : corners) soup.addVertex(c[0], c[1], c[2]);
+		soup.addTriangle(0, 1, 2);
+		soup.addTriangle(3, 4, 5);
+
+		MeshBuffer welded = simplifier.simplify(soup, Integer.MAX_VALUE, 0);
+
+		assertEquals(4, welded.getVertexCount());
+		assertEquals(2, welded.getTriangleCount());
+	}
+}
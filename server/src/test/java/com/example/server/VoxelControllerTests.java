@@ -0,0 +1,554 @@
+package com.example.server;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@SpringBootTest(properties = { "mesh.stream.chunk-vertices=32", "mesh.volume.heap-cell-limit=4096", "mesh.batch.max-item-cells=4096",
+		"mesh.batch.max-in-flight-cells=8192" })
+@AutoConfigureMockMvc
+class VoxelControllerTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private MeshCache meshCache;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	static byte[] latticePayload(int... coordinates) {
+		ByteBuffer buffer = ByteBuffer.allocate(28 + coordinates.length * 4).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putInt(VoxelWireFormat.MAGIC).putInt(VoxelWireFormat.LATTICE);
+		buffer.putFloat(1f).putFloat(0f).putFloat(0f).putFloat(0f);
+		buffer.putInt(coordinates.length / 3);
+		for (int c : coordinates) buffer.putInt(c);
+		return buffer.array();
+	}
+
+	@Test
+	void jsonUploadReturnsTriangleList() throws Exception {
+		mockMvc.perform(post("/upload").contentType(MediaType.APPLICATION_JSON).content("[{\"x\":0.5,\"y\":0.5,\"z\":0.5}]"))
+				.andExpect(status().isOk())
+				.andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+				.andExpect(jsonPath("$.length()").value(24));
+	}
+
+	@Test
+	void uploadRecordsStageAndSizeMetrics() throws Exception {
+		long extractions = meterRegistry.get("mesh.stage").tag("stage", "extract").timer().count();
+		long decodes = meterRegistry.get("mesh.stage").tag("stage", "decode").timer().count();
+		long responses = meterRegistry.get("mesh.payload.bytes").tag("direction", "out").summary().count();
+
+		mockMvc.perform(post("/upload").contentType(MediaType.APPLICATION_OCTET_STREAM).content(latticePayload(sphereLattice(7))))
+				.andExpect(status().isOk());
+
+		assertEquals(extractions + 1, meterRegistry.get("mesh.stage").tag("stage", "extract").timer().count());
+		assertEquals(decodes + 1, meterRegistry.get("mesh.stage").tag("stage", "decode").timer().count());
+		assertEquals(responses + 1, meterRegistry.get("mesh.payload.bytes").tag("direction", "out").summary().count());
+		assertTrue(meterRegistry.get("mesh.active.cells").summary().max() > 0);
+		assertTrue(meterRegistry.get("mesh.stage").tag("stage", "encode").timer().count() > 0);
+	}
+
+	@Test
+	void binaryUploadReturnsIndexedBuffers() throws Exception {
+		byte[] body = mockMvc.perform(post("/upload").contentType(MediaType.APPLICATION_OCTET_STREAM).content(latticePayload(0, 0, 0)))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType(MediaType.APPLICATION_OCTET_STREAM))
+				.andReturn().getResponse().getContentAsByteArray();
+
+		ByteBuffer buffer = ByteBuffer.wrap(body).order(ByteOrder.LITTLE_ENDIAN);
+		int vertexCount = buffer.getInt(), indexCount = buffer.getInt();
+		assertEquals(6, vertexCount);
+		assertEquals(24, indexCount);
+		assertEquals(0, buffer.getInt());
+		assertEquals(12 + vertexCount * 12 + indexCount * 4, body.length);
+	}
+
+	@Test
+	void smoothedBinaryUploadFlagsItsNormals() throws Exception {
+		byte[] body = mockMvc.perform(post("/upload").param("smoothing", "1").contentType(MediaType.APPLICATION_OCTET_STREAM).content(latticePayload(sphereLattice(3))))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsByteArray();
+
+		ByteBuffer buffer = ByteBuffer.wrap(body).order(ByteOrder.LITTLE_ENDIAN);
+		int vertexCount = buffer.getInt(), indexCount = buffer.getInt();
+		assertEquals(VoxelWireFormat.MESH_NORMALS, buffer.getInt());
+		assertEquals(12 + vertexCount * 24 + indexCount * 4, body.length);
+
+		MeshBuffer decoded = VoxelWireFormat.readMesh(new ByteArrayInputStream(body));
+		assertTrue(decoded.hasNormals());
+		assertEquals(indexCount, decoded.getIndexCount());
+	}
+
+	@Test
+	void oversizedJsonGridIsRejected() throws Exception {
+		String centers = "[{\"x\":0,\"y\":0,\"z\":0},{\"x\":1,\"y\":0,\"z\":0},{\"x\":900,\"y\":900,\"z\":900}]";
+		for (String route : new String[] { "/upload", "/upload/glb", "/upload/stream", "/upload/lod", "/jobs", "/sessions" }) {
+			mockMvc.perform(post(route).contentType(MediaType.APPLICATION_JSON).content(centers))
+					.andExpect(status().isBadRequest());
+		}
+		mockMvc.perform(post("/upload").contentType(MediaType.APPLICATION_JSON)
+						.content("[{\"x\":0,\"y\":0,\"z\":0},{\"x\":1,\"y\":0,\"z\":0},{\"x\":5000,\"y\":5000,\"z\":5000}]"))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void voxelizationBeyondHeapCellLimitIsRejected() throws Exception {
+		MeshBuffer box = VoxelizerTests.box(1f);
+		for (int v = 0; v < box.getVertexCount(); v++) box.getPositions()[v * 3] *= 3;
+		ByteArrayOutputStream triangles = new ByteArrayOutputStream();
+		VoxelWireFormat.writeMesh(box, triangles);
+
+		mockMvc.perform(post("/voxelize").param("cellSizeDivisor", "512").contentType(MediaType.APPLICATION_OCTET_STREAM).content(triangles.toByteArray()))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(post("/voxelize").param("cellSizeDivisor", "8").contentType(MediaType.APPLICATION_OCTET_STREAM).content(triangles.toByteArray()))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	void smoothingIsRejectedForJsonTriangleLists() throws Exception {
+		mockMvc.perform(post("/upload").param("smoothing", "1").contentType(MediaType.APPLICATION_JSON).content("[{\"x\":0.5,\"y\":0.5,\"z\":0.5}]"))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void runLengthUploadMatchesLatticeUpload() throws Exception {
+		ByteBuffer buffer = ByteBuffer.allocate(48).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putInt(VoxelWireFormat.MAGIC).putInt(VoxelWireFormat.RUN_LENGTH);
+		buffer.putFloat(1f).putFloat(0f).putFloat(0f).putFloat(0f);
+		buffer.putInt(2).putInt(1).putInt(1).putInt(2).putInt(0).putInt(2);
+
+		byte[] runLength = mockMvc.perform(post("/upload").contentType(MediaType.APPLICATION_OCTET_STREAM).content(buffer.array()))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsByteArray();
+		byte[] lattice = mockMvc.perform(post("/upload").contentType(MediaType.APPLICATION_OCTET_STREAM).content(latticePayload(0, 0, 0, 1, 0, 0)))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsByteArray();
+
+		assertArrayEquals(lattice, runLength);
+	}
+
+	@Test
+	void oversizedHeadersAreRejectedBeforeAllocating() throws Exception {
+		ByteBuffer lattice = ByteBuffer.allocate(28).order(ByteOrder.LITTLE_ENDIAN);
+		lattice.putInt(VoxelWireFormat.MAGIC).putInt(VoxelWireFormat.LATTICE).putFloat(1f).putFloat(0f).putFloat(0f).putFloat(0f).putInt(200_000_000);
+		mockMvc.perform(post("/upload").contentType(MediaType.APPLICATION_OCTET_STREAM).content(lattice.array()))
+				.andExpect(status().isBadRequest());
+
+		ByteBuffer runLength = ByteBuffer.allocate(40).order(ByteOrder.LITTLE_ENDIAN);
+		runLength.putInt(VoxelWireFormat.MAGIC).putInt(VoxelWireFormat.RUN_LENGTH).putFloat(1f).putFloat(0f).putFloat(0f).putFloat(0f);
+		runLength.putInt(1200).putInt(1200).putInt(1200).putInt(1);
+		mockMvc.perform(post("/upload").contentType(MediaType.APPLICATION_OCTET_STREAM).content(runLength.array()))
+				.andExpect(status().isBadRequest());
+
+		ByteBuffer mesh = ByteBuffer.allocate(12).order(ByteOrder.LITTLE_ENDIAN).putInt(100_000_000).putInt(0).putInt(0);
+		mockMvc.perform(post("/voxelize").param("cellSizeDivisor", "4").contentType(MediaType.APPLICATION_OCTET_STREAM).content(mesh.array()))
+				.andExpect(status().isBadRequest());
+
+		mockMvc.perform(post("/upload").contentType(MediaType.APPLICATION_OCTET_STREAM).content(latticePayload(0, 0, 0, 1000, 1000, 1000)))
+				.andExpect(status().isBadRequest());
+	}
+
+	static int[] sphereLattice(int radius) {
+		return ellipsoidLattice(radius, radius, radius);
+	}
+
+	static int[] ellipsoidLattice(int rx, int ry, int rz) {
+		List<Integer> coordinates = new ArrayList<>();
+		long ax = (long) ry * ry * rz * rz, ay = (long) rx * rx * rz * rz, az = (long) rx * rx * ry * ry;
+		for (int z = -rz; z <= rz; z++)
+			for (int y = -ry; y <= ry; y++)
+				for (int x = -rx; x <= rx; x++)
+					if (ax * x * x + ay * y * y + az * z * z <= az * rz * rz) {
+						coordinates.add(x);
+						coordinates.add(y);
+						coordinates.add(z);
+					}
+		return coordinates.stream().mapToInt(Integer::intValue).toArray();
+	}
+
+	@Test
+	void streamedFramesReassembleToFullMesh() throws Exception {
+		byte[] payload = latticePayload(sphereLattice(5));
+		byte[] full = mockMvc.perform(post("/upload").contentType(MediaType.APPLICATION_OCTET_STREAM).content(payload))
+				.andReturn().getResponse().getContentAsByteArray();
+
+		MvcResult pending = mockMvc.perform(post("/upload/stream").contentType(MediaType.APPLICATION_OCTET_STREAM).content(payload))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		byte[] streamed = mockMvc.perform(asyncDispatch(pending))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsByteArray();
+
+		ByteBuffer stream = ByteBuffer.wrap(streamed).order(ByteOrder.LITTLE_ENDIAN);
+		ByteBuffer positions = ByteBuffer.allocate(full.length), indices = ByteBuffer.allocate(full.length);
+		int frames = 0, vertexCount = 0, indexCount = 0;
+		while (true) {
+			int frameVertices = stream.getInt(), frameIndices = stream.getInt();
+			assertEquals(0, stream.getInt());
+			if (frameVertices == 0 && frameIndices == 0) break;
+			positions.put(streamed, stream.position(), frameVertices * 12);
+			indices.put(streamed, stream.position() + frameVertices * 12, frameIndices * 4);
+			stream.position(stream.position() + frameVertices * 12 + frameIndices * 4);
+			vertexCount += frameVertices;
+			indexCount += frameIndices;
+			frames++;
+		}
+		assertEquals(streamed.length, stream.position());
+
+		ByteBuffer reassembled = ByteBuffer.allocate(full.length).order(ByteOrder.LITTLE_ENDIAN);
+		reassembled.putInt(vertexCount).putInt(indexCount).putInt(0).put(positions.flip()).put(indices.flip());
+		assertArrayEquals(full, reassembled.array());
+		assertTrue(frames > 1);
+	}
+
+	@Test
+	void batchReturnsEveryVolumeTaggedById() throws Exception {
+		ByteBuffer invalid = ByteBuffer.allocate(40).order(ByteOrder.LITTLE_ENDIAN);
+		invalid.putInt(VoxelWireFormat.MAGIC).putInt(VoxelWireFormat.RUN_LENGTH).putFloat(1f).putFloat(0f).putFloat(0f).putFloat(0f);
+		invalid.putInt(2_000_000_003).putInt(3).putInt(3).putInt(0);
+		byte[][] payloads = { latticePayload(sphereLattice(3)), latticePayload(sphereLattice(4)), invalid.array(),
+				latticePayload(0, 0, 0), latticePayload(sphereLattice(6)), latticePayload(sphereLattice(6)), latticePayload(sphereLattice(9)) };
+		ByteBuffer batch = ByteBuffer.allocate(4 + Arrays.stream(payloads).mapToInt(p -> p.length + 8).sum()).order(ByteOrder.LITTLE_ENDIAN);
+		batch.putInt(payloads.length);
+		for (int i = 0; i < payloads.length; i++) batch.putInt(100 + i).putInt(payloads[i].length).put(payloads[i]);
+
+		MvcResult pending = mockMvc.perform(post("/upload/batch").contentType(MediaType.APPLICATION_OCTET_STREAM).content(batch.array()))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		byte[] body = mockMvc.perform(asyncDispatch(pending))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsByteArray();
+
+		ByteBuffer records = ByteBuffer.wrap(body).order(ByteOrder.LITTLE_ENDIAN);
+		boolean[] seen = new boolean[payloads.length];
+		while (records.hasRemaining()) {
+			int id = records.getInt();
+			assertTrue(!seen[id - 100]);
+			seen[id - 100] = true;
+			// 102 does not decode; 106 decodes to more cells than one batch item may hold.
+			if (id == 102 || id == 106) {
+				assertEquals(VoxelWireFormat.BATCH_FAILED, records.getInt());
+				int messageLength = records.getInt();
+				records.position(records.position() + messageLength);
+				continue;
+			}
+			assertEquals(VoxelWireFormat.BATCH_MESHED, records.getInt());
+			int vertexCount = records.getInt(records.position()), indexCount = records.getInt(records.position() + 4);
+			byte[] frame = Arrays.copyOfRange(body, records.position(), records.position() + 12 + vertexCount * 12 + indexCount * 4);
+			records.position(records.position() + frame.length);
+
+			byte[] single = mockMvc.perform(post("/upload").contentType(MediaType.APPLICATION_OCTET_STREAM).content(payloads[id - 100]))
+					.andReturn().getResponse().getContentAsByteArray();
+			assertArrayEquals(single, frame);
+		}
+		for (boolean item : seen) assertTrue(item);
+	}
+
+	@Test
+	void glbExportMatchesIndexedMesh() throws Exception {
+		byte[] payload = latticePayload(sphereLattice(4));
+		ByteBuffer mesh = ByteBuffer.wrap(mockMvc.perform(post("/upload").contentType(MediaType.APPLICATION_OCTET_STREAM).content(payload))
+				.andReturn().getResponse().getContentAsByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+		int vertexCount = mesh.getInt(), indexCount = mesh.getInt();
+
+		for (boolean quantize : new boolean[] { false, true }) {
+			byte[] glb = mockMvc.perform(post("/upload/glb").param("quantize", String.valueOf(quantize))
+							.contentType(MediaType.APPLICATION_OCTET_STREAM).content(payload))
+					.andExpect(status().isOk())
+					.andExpect(content().contentType(GlbEncoder.MEDIA_TYPE))
+					.andReturn().getResponse().getContentAsByteArray();
+
+			ByteBuffer buffer = ByteBuffer.wrap(glb).order(ByteOrder.LITTLE_ENDIAN);
+			assertEquals(0x46546C67, buffer.getInt());
+			assertEquals(2, buffer.getInt());
+			assertEquals(glb.length, buffer.getInt());
+			int jsonLength = buffer.getInt();
+			buffer.getInt();
+			JsonNode gltf = new ObjectMapper().readTree(new String(glb, 20, jsonLength, StandardCharsets.US_ASCII));
+			buffer.position(20 + jsonLength);
+			assertEquals(gltf.at("/buffers/0/byteLength").asInt(), buffer.getInt());
+			assertEquals(0x004E4942, buffer.getInt());
+			int bin = buffer.position();
+
+			assertEquals(vertexCount, gltf.at("/accessors/0/count").asInt());
+			assertEquals(indexCount, gltf.at("/accessors/1/count").asInt());
+			int stride = gltf.at("/bufferViews/0/byteStride").asInt();
+			int indexOffset = bin + gltf.at("/bufferViews/1/byteOffset").asInt();
+			for (int i = 0; i < indexCount; i++)
+				assertEquals(mesh.getInt(12 + vertexCount * 12 + i * 4), buffer.getShort(indexOffset + i * 2) & 0xFFFF);
+
+			for (int v = 0; v < vertexCount; v++) {
+				for (int axis = 0; axis < 3; axis++) {
+					float expected = (axis == 2 ? -1 : 1) * mesh.getFloat(12 + (v * 3 + axis) * 4);
+					int offset = bin + v * stride;
+					if (quantize) {
+						double scale = gltf.at("/nodes/0/scale/" + axis).asDouble();
+						double position = gltf.at("/nodes/0/translation/" + axis).asDouble() + scale * (buffer.getShort(offset + axis * 2) & 0xFFFF);
+						assertEquals(expected, position, scale);
+					} else {
+						assertEquals(expected, buffer.getFloat(offset + axis * 4));
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	void glbTrianglesFaceOutwardAlongTheirNormals() throws Exception {
+		assertFacesOutward(latticePayload(sphereLattice(6)), false);
+		assertFacesOutward(latticePayload(ellipsoidLattice(9, 5, 3)), true);
+	}
+
+	// Positions and normals are compared in the node's space the way a viewer sees them: positions through
+	// the node translation and scale, normals through its inverse transpose.
+	private void assertFacesOutward(byte[] payload, boolean quantize) throws Exception {
+		byte[] glb = mockMvc.perform(post("/upload/glb").param("smoothing", "1").param("quantize", String.valueOf(quantize))
+						.contentType(MediaType.APPLICATION_OCTET_STREAM).content(payload))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsByteArray();
+
+		ByteBuffer buffer = ByteBuffer.wrap(glb).order(ByteOrder.LITTLE_ENDIAN);
+		int jsonLength = buffer.getInt(12);
+		JsonNode gltf = new ObjectMapper().readTree(new String(glb, 20, jsonLength, StandardCharsets.US_ASCII));
+		int bin = 28 + jsonLength;
+		int normals = bin + gltf.at("/bufferViews/1/byteOffset").asInt(), indices = bin + gltf.at("/bufferViews/2/byteOffset").asInt();
+		int vertexCount = gltf.at("/accessors/0/count").asInt(), indexCount = gltf.at("/accessors/2/count").asInt();
+		assertTrue(indexCount > 0);
+
+		double[] translation = new double[3], scale = { 1, 1, 1 };
+		if (quantize) {
+			for (int axis = 0; axis < 3; axis++) {
+				translation[axis] = gltf.at("/nodes/0/translation/" + axis).asDouble();
+				scale[axis] = gltf.at("/nodes/0/scale/" + axis).asDouble();
+			}
+			assertEquals(scale[0], scale[1]);
+			assertEquals(scale[0], scale[2]);
+		}
+
+		float[] position = new float[vertexCount * 3], normal = new float[vertexCount * 3];
+		for (int v = 0; v < vertexCount; v++) {
+			for (int axis = 0; axis < 3; axis++) {
+				int i = v * 3 + axis;
+				if (quantize) {
+					position[i] = (float) (translation[axis] + scale[axis] * (buffer.getShort(bin + v * 8 + axis * 2) & 0xFFFF));
+					normal[i] = (float) (buffer.get(normals + v * 4 + axis) / 127.0 / scale[axis]);
+				} else {
+					position[i] = buffer.getFloat(bin + v * 12 + axis * 4);
+					normal[i] = buffer.getFloat(normals + v * 12 + axis * 4);
+				}
+			}
+			if (!quantize) {
+				float nx = normal[v * 3], ny = normal[v * 3 + 1], nz = normal[v * 3 + 2];
+				assertEquals(1.0, Math.sqrt(nx * nx + ny * ny + nz * nz), 1e-4);
+			}
+		}
+
+		double[] center = new double[3];
+		for (int i = 0; i < vertexCount * 3; i++) center[i % 3] += position[i] / vertexCount;
+		for (int t = 0; t < indexCount; t += 3) {
+			float[][] corner = new float[3][3], cornerNormal = new float[3][3];
+			for (int k = 0; k < 3; k++) {
+				int v = buffer.getShort(indices + (t + k) * 2) & 0xFFFF;
+				for (int axis = 0; axis < 3; axis++) {
+					corner[k][axis] = position[v * 3 + axis];
+					cornerNormal[k][axis] = normal[v * 3 + axis];
+				}
+			}
+			double ux = corner[1][0] - corner[0][0], uy = corner[1][1] - corner[0][1], uz = corner[1][2] - corner[0][2];
+			double vx = corner[2][0] - corner[0][0], vy = corner[2][1] - corner[0][1], vz = corner[2][2] - corner[0][2];
+			double fx = uy * vz - uz * vy, fy = uz * vx - ux * vz, fz = ux * vy - uy * vx;
+			if (fx == 0 && fy == 0 && fz == 0) continue;
+			double cx = corner[0][0] + corner[1][0] + corner[2][0] - 3 * center[0];
+			double cy = corner[0][1] + corner[1][1] + corner[2][1] - 3 * center[1];
+			double cz = corner[0][2] + corner[1][2] + corner[2][2] - 3 * center[2];
+			double sx = cornerNormal[0][0] + cornerNormal[1][0] + cornerNormal[2][0];
+			double sy = cornerNormal[0][1] + cornerNormal[1][1] + cornerNormal[2][1];
+			double sz = cornerNormal[0][2] + cornerNormal[1][2] + cornerNormal[2][2];
+			assertTrue(fx * cx + fy * cy + fz * cz > 0);
+			double alignment = (fx * sx + fy * sy + fz * sz) / Math.sqrt((fx * fx + fy * fy + fz * fz) * (sx * sx + sy * sy + sz * sz));
+			assertTrue(alignment > 0.5, "face normal and vertex normals diverge: " + alignment);
+		}
+	}
+
+	static byte[] runLengthSphere(int radius) {
+		int size = 2 * radius + 1;
+		List<Integer> runs = new ArrayList<>();
+		boolean solid = false;
+		int length = 0;
+		for (int z = -radius; z <= radius; z++)
+			for (int y = -radius; y <= radius; y++)
+				for (int x = -radius; x <= radius; x++) {
+					boolean inside = x * x + y * y + z * z <= radius * radius;
+					if (inside != solid) {
+						runs.add(length);
+						solid = inside;
+						length = 0;
+					}
+					length++;
+				}
+		runs.add(length);
+
+		ByteBuffer buffer = ByteBuffer.allocate(40 + runs.size() * 4).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putInt(VoxelWireFormat.MAGIC).putInt(VoxelWireFormat.RUN_LENGTH);
+		buffer.putFloat(1f).putFloat(0f).putFloat(0f).putFloat(0f);
+		buffer.putInt(size).putInt(size).putInt(size).putInt(runs.size());
+		for (int run : runs) buffer.putInt(run);
+		return buffer.array();
+	}
+
+	@Test
+	void largeRunLengthStreamSpillsToMappedVolume() throws Exception {
+		byte[] payload = runLengthSphere(10);
+		byte[] full = mockMvc.perform(post("/upload").contentType(MediaType.APPLICATION_OCTET_STREAM).content(payload))
+				.andReturn().getResponse().getContentAsByteArray();
+
+		MvcResult pending = mockMvc.perform(post("/upload/stream").contentType(MediaType.APPLICATION_OCTET_STREAM).content(payload))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		byte[] streamed = mockMvc.perform(asyncDispatch(pending))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsByteArray();
+
+		ByteBuffer stream = ByteBuffer.wrap(streamed).order(ByteOrder.LITTLE_ENDIAN);
+		int vertexCount = 0, indexCount = 0;
+		while (true) {
+			int frameVertices = stream.getInt(), frameIndices = stream.getInt();
+			stream.getInt();
+			if (frameVertices == 0 && frameIndices == 0) break;
+			stream.position(stream.position() + frameVertices * 12 + frameIndices * 4);
+			vertexCount += frameVertices;
+			indexCount += frameIndices;
+		}
+		ByteBuffer expected = ByteBuffer.wrap(full).order(ByteOrder.LITTLE_ENDIAN);
+		assertEquals(expected.getInt(), vertexCount);
+		assertEquals(expected.getInt(), indexCount);
+	}
+
+	@Test
+	void levelsStreamCoarsestFirstEndingWithFullMesh() throws Exception {
+		byte[] payload = latticePayload(sphereLattice(8));
+		byte[] full = mockMvc.perform(post("/upload").contentType(MediaType.APPLICATION_OCTET_STREAM).content(payload))
+				.andReturn().getResponse().getContentAsByteArray();
+
+		MvcResult pending = mockMvc.perform(post("/upload/lod").param("levels", "3").contentType(MediaType.APPLICATION_OCTET_STREAM).content(payload))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		byte[] streamed = mockMvc.perform(asyncDispatch(pending))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsByteArray();
+
+		ByteBuffer stream = ByteBuffer.wrap(streamed).order(ByteOrder.LITTLE_ENDIAN);
+		assertEquals(3, stream.getInt());
+		int previousVertices = 0;
+		for (int level = 2; level >= 0; level--) {
+			assertEquals(level, stream.getInt());
+			assertEquals(1 << level, stream.getFloat(), 1e-6);
+			int start = stream.position();
+			int vertexCount = stream.getInt(), indexCount = stream.getInt();
+			assertTrue(vertexCount > previousVertices);
+			previousVertices = vertexCount;
+			stream.position(start + 12 + vertexCount * 12 + indexCount * 4);
+			if (level == 0) assertArrayEquals(full, Arrays.copyOfRange(streamed, start, stream.position()));
+		}
+		assertEquals(streamed.length, stream.position());
+	}
+
+	@Test
+	void repeatedUploadIsServedFromCacheAndHonoursETag() throws Exception {
+		byte[] payload = latticePayload(sphereLattice(3));
+		String etag = mockMvc.perform(post("/upload").contentType(MediaType.APPLICATION_OCTET_STREAM).content(payload))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		long hits = meshCache.getHitCount();
+
+		mockMvc.perform(post("/upload").contentType(MediaType.APPLICATION_OCTET_STREAM).content(payload))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, etag));
+		assertEquals(hits + 1, meshCache.getHitCount());
+
+		mockMvc.perform(post("/upload").contentType(MediaType.APPLICATION_OCTET_STREAM).content(payload).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified())
+				.andExpect(content().bytes(new byte[0]));
+	}
+
+	@Test
+	void wildcardETagOnlyMatchesCachedMeshes() throws Exception {
+		byte[] payload = latticePayload(5, 6, 7, 5, 6, 8, 6, 6, 7);
+		mockMvc.perform(post("/upload").contentType(MediaType.APPLICATION_OCTET_STREAM).content(payload).header(HttpHeaders.IF_NONE_MATCH, "*"))
+				.andExpect(status().isOk());
+
+		mockMvc.perform(post("/upload").contentType(MediaType.APPLICATION_OCTET_STREAM).content(payload).header(HttpHeaders.IF_NONE_MATCH, "*"))
+				.andExpect(status().isNotModified());
+	}
+
+	@Test
+	void jsonAndBinaryUploadsCarryDistinctETags() throws Exception {
+		String json = mockMvc.perform(post("/upload").contentType(MediaType.APPLICATION_JSON).content("[{\"x\":0.5,\"y\":0.5,\"z\":0.5}]"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		String binary = mockMvc.perform(post("/upload").contentType(MediaType.APPLICATION_OCTET_STREAM).content(latticePayload(0, 0, 0)))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+		assertTrue(json.endsWith("-json\""));
+		assertNotEquals(json, binary);
+		mockMvc.perform(post("/upload").contentType(MediaType.APPLICATION_OCTET_STREAM).content(latticePayload(0, 0, 0)).header(HttpHeaders.IF_NONE_MATCH, json))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	void jobEventsEndWithTheTerminalStatus() throws Exception {
+		String location = mockMvc.perform(post("/jobs").contentType(MediaType.APPLICATION_OCTET_STREAM).content(latticePayload(sphereLattice(5))))
+				.andExpect(status().isAccepted())
+				.andReturn().getResponse().getHeader(HttpHeaders.LOCATION);
+
+		MvcResult pending = mockMvc.perform(get(location + "/events").accept(MediaType.TEXT_EVENT_STREAM))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		pending.getAsyncResult(10_000);
+		String events = pending.getResponse().getContentAsString();
+		String[] lines = events.trim().split("\n");
+		assertTrue(lines[lines.length - 1].startsWith("data:") && lines[lines.length - 1].contains("\"state\":\"DONE\""), events);
+	}
+
+	@Test
+	void malformedBinaryUploadIsRejected() throws Exception {
+		mockMvc.perform(post("/upload").contentType(MediaType.APPLICATION_OCTET_STREAM).content(new byte[] { 1, 2, 3 }))
+				.andExpect(status().isBadRequest());
+	}
+}
@@ -0,0 +1,91 @@
+package com.example.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class VoxelSessionTests {
+
+	private final MarchingCubes marchingCubes = new MarchingCubes();
+
+	static int triangles(List<ChunkMesh> chunks) {
+		int count = 0;
+		for (ChunkMesh chunk : chunks) count += chunk.getIndices().length / 3;
+		return count;
+	}
+
+	@Test
+	void chunkMeshesCoverTheWholeVolume() {
+		VoxelGrid grid = VoxelGrid.fromCellCenters(MarchingCubesTests.sphere(20, 1.0));
+		VoxelSession session = VoxelSession.fromGrid("s", grid, marchingCubes);
+
+		List<ChunkMesh> chunks = session.meshesSince(0);
+		assertTrue(chunks.size() > 1);
+		assertEquals(marchingCubes.extract(grid).getTriangleCount(), triangles(chunks));
+	}
+
+	@Test
+	void editRemeshesOnlyNeighbouringChunks() {
+		VoxelGrid grid = VoxelGrid.fromCellCenters(MarchingCubesTests.sphere(20, 1.0));
+		VoxelSession session = VoxelSession.fromGrid("s", grid, marchingCubes);
+		long before = session.getVersion();
+
+		int x = VoxelSession.CHUNK_SIZE, y = 21, z = 21;
+		List<ChunkMesh> changed = session.edit(null, new int[] { x, y, z }, marchingCubes);
+
+		assertEquals(2, changed.size());
+		assertTrue(changed.stream().allMatch(chunk -> chunk.getVersion() == before + 1));
+		assertEquals(changed.size(), session.meshesSince(before).size());
+
+		grid.set(x, y, z, VoxelGrid.EMPTY);
+		assertEquals(marchingCubes.extract(grid).getTriangleCount(), triangles(session.meshesSince(0)));
+	}
+
+	@Test
+	void rejectedEditLeavesSessionUntouched() {
+		VoxelGrid grid = VoxelGrid.fromCellCenters(MarchingCubesTests.sphere(6, 1.0));
+		VoxelSession session = VoxelSession.fromGrid("s", grid, marchingCubes);
+		long before = session.getVersion();
+		int triangles = triangles(session.meshesSince(0));
+
+		assertThrows(IllegalArgumentException.class, () -> session.edit(null, new int[] { 6, 6, 6, Integer.MAX_VALUE, 0, 0 }, marchingCubes));
+
+		assertEquals(before, session.getVersion());
+		assertEquals(triangles, triangles(session.meshesSince(0)));
+	}
+
+	@Test
+	void editsBeyondSessionLimitsAreRejectedBeforeApplying() {
+		VoxelSession session = new VoxelSession("s", 0, 0, 0, 1, 2, 4);
+		session.edit(new int[] { 5, 5, 5 }, null, marchingCubes);
+		long before = session.getVersion();
+		int s = VoxelSession.CHUNK_SIZE;
+
+		assertThrows(IllegalArgumentException.class, () -> session.edit(new int[] { 6, 5, 5, s * 10, 0, 0, s * 20, 0, 0 }, null, marchingCubes));
+		assertThrows(IllegalArgumentException.class, () -> session.edit(new int[] { 1, 1, 1, 2, 2, 2, 3, 3, 3 }, new int[] { 4, 4, 4, 5, 5, 5 }, marchingCubes));
+		assertEquals(before, session.getVersion());
+
+		session.edit(new int[] { 6, 5, 5, s * 10, 0, 0 }, null, marchingCubes);
+		assertEquals(before + 1, session.getVersion());
+	}
+
+	@Test
+	void emptiedChunkIsReportedToIncrementalClients() {
+		VoxelSession session = new VoxelSession("s", 0, 0, 0, 1);
+		session.edit(new int[] { 5, 5, 5 }, null, marchingCubes);
+		long before = session.getVersion();
+
+		List<ChunkMesh> changed = session.edit(null, new int[] { 5, 5, 5 }, marchingCubes);
+		assertEquals(1, changed.size());
+
+		List<ChunkMesh> update = session.meshesSince(before);
+		assertEquals(1, update.size());
+		assertEquals(0, update.get(0).getIndices().length);
+		assertEquals(before + 1, update.get(0).getVersion());
+		assertTrue(session.meshesSince(0).isEmpty());
+	}
+}
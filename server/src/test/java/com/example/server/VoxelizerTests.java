@@ -0,0 +1,59 @@
+package com.example.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+class VoxelizerTests {
+
+	private final Voxelizer voxelizer = new Voxelizer();
+
+	static MeshBuffer box(float size) {
+		float[] positions = new float[24];
+		for (int i = 0; i < 8; i++) {
+			positions[i * 3] = (i & 1) * size;
+			positions[i * 3 + 1] = (i >> 1 & 1) * size;
+			positions[i * 3 + 2] = (i >> 2 & 1) * size;
+		}
+		int[] indices = {
+			0, 2, 1, 1, 2, 3, 4, 5, 6, 5, 7, 6,
+			0, 1, 4, 1, 5, 4, 2, 6, 3, 3, 6, 7,
+			0, 4, 2, 2, 4, 6, 1, 3, 5, 3, 7, 5
+		};
+		return new MeshBuffer(positions, indices);
+	}
+
+	static int solidCells(VoxelGrid grid) {
+		int solid = 0;
+		for (byte b : grid.getData())
+			if (b == VoxelGrid.SOLID) solid++;
+		return solid;
+	}
+
+	@Test
+	void rejectsGridsBeyondCellLimit() {
+		assertThrows(IllegalArgumentException.class, () -> voxelizer.voxelize(box(2f), 64, Voxelizer.Fill.SPAN, 64 * 64 * 64));
+		assertEquals(7, voxelizer.voxelize(box(2f), 4, Voxelizer.Fill.SPAN, 7 * 7 * 7).getWidth());
+	}
+
+	@Test
+	void spanFillMatchesClientRayTest() {
+		VoxelGrid grid = voxelizer.voxelize(box(2f), 4, Voxelizer.Fill.SPAN);
+
+		assertEquals(7, grid.getWidth());
+		assertEquals(0.5, grid.getCellSize(), 1e-9);
+		assertEquals(64, solidCells(grid));
+		assertEquals(1f, grid.density(1, 1, 1));
+		assertEquals(0f, grid.density(5, 1, 1));
+	}
+
+	@Test
+	void parityFillAgreesOnClosedMesh() {
+		VoxelGrid span = voxelizer.voxelize(box(2f), 4, Voxelizer.Fill.SPAN);
+		VoxelGrid parity = voxelizer.voxelize(box(2f), 4, Voxelizer.Fill.PARITY);
+
+		assertEquals(64, solidCells(parity));
+		assertEquals(MeshCache.key(span, ""), MeshCache.key(parity, ""));
+	}
+}